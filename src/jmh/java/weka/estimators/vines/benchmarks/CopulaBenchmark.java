@@ -0,0 +1,132 @@
+package weka.estimators.vines.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import weka.estimators.vines.copulas.Copula;
+
+/**
+ * JMH benchmarks for the copula kernels. <br>
+ * It measures the density, the h-functions and their inverses of every copula
+ * family. The times are per evaluated point.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopulaBenchmark {
+	public static final int POINTS = 1024;
+
+	@Param({ "Clayton", "FGM", "Frank", "Galambos", "Gauss", "Gumbel",
+			"Independence", "T" })
+	public String family;
+
+	private Copula c;
+	private double[] x;
+	private double[] y;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		c = createCopula(family);
+
+		Random r = new Random(42);
+		x = new double[POINTS];
+		y = new double[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			x[i] = r.nextDouble();
+			y[i] = r.nextDouble();
+		}
+	}
+
+	/**
+	 * Creates a copula of the given family with moderate positive
+	 * dependence.
+	 *
+	 * @param family
+	 *            the family name without the Copula suffix.
+	 * @return returns the copula.
+	 * @throws Exception
+	 *             if the family cannot be instantiated.
+	 */
+	public static Copula createCopula(String family) throws Exception {
+		Copula c = (Copula) Class.forName(
+				"weka.estimators.vines.copulas." + family + "Copula")
+				.newInstance();
+
+		// tau = 0.5 or close to the upper bound of the family
+		double[] range = c.tauRange();
+		double tau = Math.min(0.5, 0.8 * range[1]);
+		if (tau > 0) {
+			c.tauInverse(tau);
+		}
+		return c;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public double density() {
+		double out = 0;
+		for (int i = 0; i < POINTS; i++) {
+			out += c.density(x[i], y[i]);
+		}
+		return out;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public double h1Function() {
+		double out = 0;
+		for (int i = 0; i < POINTS; i++) {
+			out += c.h1Function(x[i], y[i]);
+		}
+		return out;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public double h2Function() {
+		double out = 0;
+		for (int i = 0; i < POINTS; i++) {
+			out += c.h2Function(x[i], y[i]);
+		}
+		return out;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public double h1inverse() {
+		double out = 0;
+		for (int i = 0; i < POINTS; i++) {
+			out += c.h1inverse(x[i], y[i]);
+		}
+		return out;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public double h2inverse() {
+		double out = 0;
+		for (int i = 0; i < POINTS; i++) {
+			out += c.h2inverse(x[i], y[i]);
+		}
+		return out;
+	}
+}
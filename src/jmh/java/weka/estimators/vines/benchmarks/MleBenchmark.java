@@ -0,0 +1,69 @@
+package weka.estimators.vines.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import weka.estimators.vines.copulas.Copula;
+
+/**
+ * JMH benchmark for the copula MLE. <br>
+ * Every family is fitted to observations simulated from itself. Every
+ * invocation fits a new copula, so no state of an earlier fit is reused.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MleBenchmark {
+	@Param({ "Clayton", "FGM", "Frank", "Galambos", "Gauss", "Gumbel",
+			"Independence", "T" })
+	public String family;
+
+	@Param({ "200", "1000", "5000" })
+	public int size;
+
+	private Copula c;
+	private double[] a;
+	private double[] b;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		Copula gen = CopulaBenchmark.createCopula(family);
+
+		Random r = new Random(42);
+		a = new double[size];
+		b = new double[size];
+		for (int i = 0; i < size; i++) {
+			a[i] = r.nextDouble();
+			b[i] = gen.h1inverse(a[i], r.nextDouble());
+		}
+
+	}
+
+	@Setup(Level.Invocation)
+	public void createCopula() throws Exception {
+		c = CopulaBenchmark.createCopula(family);
+	}
+
+	@Benchmark
+	public double mle() {
+		return c.mle(a, b);
+	}
+}
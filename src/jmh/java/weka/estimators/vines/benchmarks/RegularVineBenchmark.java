@@ -0,0 +1,89 @@
+package weka.estimators.vines.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ConverterUtils.DataSource;
+import weka.estimators.vines.RegularVine;
+
+/**
+ * JMH benchmarks for building, scoring and sampling a RegularVine. <br>
+ * The data is either the daxreturns data set or a synthetic data set of the
+ * given size, which is sampled from a RegularVine built on daxreturns. The
+ * path to daxreturns.arff can be set with the system property vines.data.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class RegularVineBenchmark {
+	public static final String DATA = "src/main/data/daxreturns.arff";
+
+	@Param({ "daxreturns", "250", "1000", "4000" })
+	public String data;
+
+	private Instances train;
+	private RegularVine vine;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		Instances dax = DataSource.read(System.getProperty("vines.data",
+				DATA));
+
+		if (data.equals("daxreturns")) {
+			train = dax;
+		} else {
+			RegularVine gen = new RegularVine();
+			gen.buildEstimator(dax);
+			train = gen.createRandomInstances(Integer.parseInt(data), 42);
+		}
+
+		vine = new RegularVine();
+		vine.buildEstimator(train);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 3)
+	public RegularVine buildEstimator() {
+		RegularVine v = new RegularVine();
+		v.buildEstimator(train);
+		return v;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 3, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public double logDensity() {
+		next = (next + 1) % train.size();
+		return vine.logDensity(train.get(next));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 3, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public Instance createRandomSample() {
+		return vine.createRandomSample();
+	}
+}
@@ -0,0 +1,73 @@
+package weka.estimators.vines.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import weka.estimators.vines.VineUtils;
+
+/**
+ * JMH benchmarks for the pairwise statistics of VineUtils.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UtilsBenchmark {
+	@Param({ "100", "1000", "10000" })
+	public int size;
+
+	private double[] a;
+	private double[] b;
+	private double[] w;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random r = new Random(42);
+		a = new double[size];
+		b = new double[size];
+		w = new double[size];
+		for (int i = 0; i < size; i++) {
+			a[i] = r.nextDouble();
+			// dependent with ties, like rank data
+			b[i] = Math.round((a[i] + r.nextGaussian() * 0.3) * 1000) / 1000.0;
+			w[i] = 1 + r.nextInt(3);
+		}
+	}
+
+	@Benchmark
+	public double kendallsTau() {
+		return VineUtils.kendallsTau(a, b);
+	}
+
+	@Benchmark
+	public double weightedKendallsTau() {
+		return VineUtils.kendallsTau(a, b, w);
+	}
+
+	@Benchmark
+	public double[] rankNormalization() {
+		return VineUtils.rankNormalization(b);
+	}
+
+	@Benchmark
+	public double[] empiricalCopula() {
+		return VineUtils.empiricalCopula(a, b);
+	}
+}
@@ -0,0 +1,28 @@
+package weka.estimators;
+
+import weka.core.Instances;
+
+/**
+ * This is an interface for density estimators, which can be
+ * built on weighted observations.
+ * <br>
+ * The weights are passed as array aligned with the instances, so
+ * meta estimators can reweight a shared data set without copying it.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public interface WeightedDensityEstimator extends DensityEstimator{
+	/**
+	 * Generates an estimator on weighted observations.
+	 * <br>
+	 * Integer weights are equivalent to repeating the observations,
+	 * observations with weight 0 are ignored.
+	 *
+	 * @param data set of instances serving as training data
+	 * @param weights one weight per instance, null for unit weights
+	 * @exception Exception if the estimator has not been
+	 * generated successfully
+	 */
+	public void buildEstimator(Instances data, double[] weights)
+			throws Exception;
+}
@@ -1,13 +1,23 @@
 package weka.estimators.meta;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.Option;
 import weka.core.OptionMetadata;
+import weka.core.SerializedObject;
 import weka.estimators.DensityEstimator;
+import weka.estimators.WeightedDensityEstimator;
 
 /**
  * This class is a meta estimator using Bootstrap Aggregation methhod.
@@ -44,6 +54,9 @@ public class Bagging implements DensityEstimator {
 	/** Debug mode */
 	protected boolean m_Debug = false;
 
+	/** The number of threads to build the ensemble with */
+	protected int m_NumExecutionSlots = 1;
+
 	/**
 	 * Constructor.
 	 */
@@ -57,6 +70,9 @@ public class Bagging implements DensityEstimator {
 
 	/**
 	 * Returns a training set for a particular iteration.
+	 * <br>
+	 * It copies each instance of the training data as often as it is
+	 * drawn by getBootstrapWeights, so both describe the same resample.
 	 * 
 	 * @param iteration
 	 *            the number of the iteration for the requested training set.
@@ -66,32 +82,94 @@ public class Bagging implements DensityEstimator {
 	 */
 	protected Instances getTrainingSet(int iteration)
 			throws Exception {
-		int bagSize = (int) (m_data.numInstances() * (m_BagSizePercent / 100.0));
-		Instances bagData = null;
-		Random r = new Random(m_Seed + iteration);
+		double[] counts = getBootstrapWeights(iteration);
+		Instances bagData = new Instances(m_data, m_data.numInstances());
 
 		// create the in-bag dataset
-		if (bagSize < m_data.numInstances()) {
-			bagData = m_data.resampleWithWeights(r);
-			bagData.randomize(r);
-			Instances newBagData = new Instances(bagData, 0, bagSize);
-			bagData = newBagData;
-		} else {
-			bagData = m_data.resampleWithWeights(r);
+		for (int i = 0; i < counts.length; i++) {
+			for (int k = 0; k < counts[i]; k++) {
+				Instance x = (Instance) m_data.instance(i).copy();
+				x.setWeight(1);
+				bagData.add(x);
+			}
 		}
 		return bagData;
 	}
 
+	/**
+	 * Returns the bootstrap multiplicities for a particular iteration.
+	 * <br>
+	 * The in-bag instances are drawn with replacement proportional to
+	 * their weights, the bag size is a percentage of the training size.
+	 * The draw only depends on the seed and the iteration.
+	 * 
+	 * @param iteration
+	 *            the number of the iteration for the requested weights.
+	 * @return the multiplicity of each training instance.
+	 */
+	protected double[] getBootstrapWeights(int iteration) {
+		int n = m_data.numInstances();
+		int bagSize = Math.min(n,
+				(int) (n * (m_BagSizePercent / 100.0)));
+		Random r = new Random(m_Seed + iteration);
+
+		// cumulative instance weights
+		double[] cum = new double[n];
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += m_data.instance(i).weight();
+			cum[i] = sum;
+		}
+
+		double[] counts = new double[n];
+		for (int k = 0; k < bagSize; k++) {
+			int i = Arrays.binarySearch(cum, r.nextDouble() * sum);
+			i = i < 0 ? -i - 1 : i + 1;
+			counts[Math.min(i, n - 1)]++;
+		}
+		return counts;
+	}
+
+	/**
+	 * Builds a member of the ensemble.
+	 * <br>
+	 * Weighted estimators get the bootstrap multiplicities over
+	 * the shared training data, the others a copied bootstrap sample.
+	 * 
+	 * @param iteration
+	 *            the number of the member.
+	 * @throws Exception
+	 *             if something goes wrong during the training process
+	 */
+	protected void buildMember(int iteration) throws Exception {
+		DensityEstimator e = m_Estimators[iteration];
+		if (e instanceof WeightedDensityEstimator) {
+			((WeightedDensityEstimator) e).buildEstimator(m_data,
+					getBootstrapWeights(iteration));
+		} else {
+			e.buildEstimator(getTrainingSet(iteration));
+		}
+	}
+
 	@Override
 	public void buildEstimator(Instances data) throws Exception{
 		// get fresh Instances object
 		m_data = new Instances(data);
 		m_random = new Random(m_Seed);
 
-		for (int j = 0; j < m_Estimators.length; j++) {
-			m_Estimators[j] = m_Estimator.getClass().newInstance();
+		if (m_Estimator instanceof Serializable) {
+			// Copy the configured base estimator
+			SerializedObject so = new SerializedObject(m_Estimator);
+			for (int j = 0; j < m_Estimators.length; j++) {
+				m_Estimators[j] = (DensityEstimator) so.getObject();
+			}
+		} else {
 			// Copy Options of base estimator
-			m_Estimators[j].setOptions(m_Estimator.getOptions());
+			String[] options = m_Estimator.getOptions();
+			for (int j = 0; j < m_Estimators.length; j++) {
+				m_Estimators[j] = m_Estimator.getClass().newInstance();
+				m_Estimators[j].setOptions(options.clone());
+			}
 		}
 
 		buildEstimators();
@@ -99,13 +177,49 @@ public class Bagging implements DensityEstimator {
 
 	/**
 	 * Does the actual construction of the ensemble
+	 * <br>
+	 * The members are built in parallel, if more than one execution slot
+	 * is available. Each member uses the seed m_Seed + iteration, so the
+	 * ensemble does not depend on the number of slots.
 	 *
 	 * @throws Exception
 	 *             if something goes wrong during the training process
 	 */
 	protected void buildEstimators() throws Exception {
-		for (int i = 0; i < m_Estimators.length; i++) {
-			m_Estimators[i].buildEstimator(getTrainingSet(i));
+		if (m_NumExecutionSlots <= 1) {
+			for (int i = 0; i < m_Estimators.length; i++) {
+				buildMember(i);
+			}
+			return;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(
+				Math.min(m_NumExecutionSlots, m_Estimators.length));
+		try {
+			ArrayList<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (int i = 0; i < m_Estimators.length; i++) {
+				final int iteration = i;
+				results.add(pool.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						buildMember(iteration);
+						return null;
+					}
+				}));
+			}
+
+			for (Future<Void> f : results) {
+				try {
+					f.get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof Exception) {
+						throw (Exception) e.getCause();
+					}
+					throw e;
+				}
+			}
+		} finally {
+			pool.shutdownNow();
 		}
 	}
 
@@ -143,6 +257,21 @@ public class Bagging implements DensityEstimator {
 		this.m_Estimator = m_Estimator;
 	}
 	
+	@OptionMetadata(displayName = "Number of execution slots",
+            description = "The number of threads to build the ensemble with"
+            		+ " (default 1).",
+            commandLineParamName = "num-slots",
+            commandLineParamSynopsis = "-num-slots <num>",
+            commandLineParamIsFlag = false,
+            displayOrder = 2)
+	public int getNumExecutionSlots() {
+		return m_NumExecutionSlots;
+	}
+	public void setNumExecutionSlots(int numSlots) {
+		if (numSlots > 0)
+			m_NumExecutionSlots = numSlots;
+	}
+	
 	// Option Handler
 	
 	@Override
@@ -0,0 +1,44 @@
+package weka.estimators.vines;
+
+import weka.estimators.vines.copulas.Copula;
+
+/**
+ * This is an empty implementation of the BuildListener.
+ * Listeners, which are interested in a few callbacks only, can extend it.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public abstract class BuildAdapter implements BuildListener {
+
+	@Override
+	public void buildStarted(RegularVine vine, int trees) {
+	}
+
+	@Override
+	public void treeStarted(int tree) {
+	}
+
+	@Override
+	public void phaseStarted(int tree, Phase phase) {
+	}
+
+	@Override
+	public void edgeFitted(int tree, Edge e, Copula c, double logLik) {
+	}
+
+	@Override
+	public void phaseFinished(int tree, Phase phase, long elapsed) {
+	}
+
+	@Override
+	public void treeFinished(int tree, long elapsed) {
+	}
+
+	@Override
+	public void buildFinished(long elapsed) {
+	}
+
+	@Override
+	public void buildFailed(long elapsed) {
+	}
+}
@@ -0,0 +1,96 @@
+package weka.estimators.vines;
+
+import weka.estimators.vines.copulas.Copula;
+
+/**
+ * This is an interface for listeners on the RVine construction.
+ * The listener is notified about the trees and the phases of
+ * RegularVine.buildEstimator, also when starting from a prior RVine, and of
+ * RegularVine.update, and about every fitted edge.
+ * <br>
+ * The callbacks are made from the building thread. The elapsed times are in
+ * milliseconds. The trees are indexed from 0, the phases after the last tree
+ * have the tree index -1.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public interface BuildListener {
+
+	/**
+	 * The phases of the RVine construction. <br>
+	 * WEIGHTING - Weight the edges by Kendall's tau or CV likelihood.
+	 * MST - Compute the maximum spanning tree.
+	 * FITTING - Select and fit the copulae on the tree edges.
+	 * MERGE - Merge the edges of a tree to the nodes of the next tree.
+	 * REFIT - Refit the copulae on the full data after subsampling.
+	 * MATRIX - Build the RVine matrices.
+	 */
+	public enum Phase {
+		WEIGHTING, MST, FITTING, MERGE, REFIT, MATRIX
+	}
+
+	/**
+	 * Called when the construction starts.
+	 *
+	 * @param vine	the RVine to be built.
+	 * @param trees	the number of trees.
+	 */
+	public void buildStarted(RegularVine vine, int trees);
+
+	/**
+	 * Called when a tree is started.
+	 *
+	 * @param tree	the tree index.
+	 */
+	public void treeStarted(int tree);
+
+	/**
+	 * Called when a phase is started.
+	 *
+	 * @param tree	the tree index, -1 after the last tree.
+	 * @param phase	the phase.
+	 */
+	public void phaseStarted(int tree, Phase phase);
+
+	/**
+	 * Called when the copula of an edge was selected.
+	 *
+	 * @param tree	the tree index.
+	 * @param e	the edge.
+	 * @param c	the selected copula.
+	 * @param logLik	the log-likelihood of the copula on the edge.
+	 */
+	public void edgeFitted(int tree, Edge e, Copula c, double logLik);
+
+	/**
+	 * Called when a phase is finished.
+	 *
+	 * @param tree	the tree index, -1 after the last tree.
+	 * @param phase	the phase.
+	 * @param elapsed	the elapsed time of the phase.
+	 */
+	public void phaseFinished(int tree, Phase phase, long elapsed);
+
+	/**
+	 * Called when a tree is finished.
+	 *
+	 * @param tree	the tree index.
+	 * @param elapsed	the elapsed time of the tree.
+	 */
+	public void treeFinished(int tree, long elapsed);
+
+	/**
+	 * Called when the construction is finished.
+	 *
+	 * @param elapsed	the total elapsed time.
+	 */
+	public void buildFinished(long elapsed);
+
+	/**
+	 * Called instead of buildFinished, when the construction is aborted
+	 * by an exception.
+	 *
+	 * @param elapsed	the elapsed time until the failure.
+	 */
+	public void buildFailed(long elapsed);
+}
@@ -0,0 +1,192 @@
+package weka.estimators.vines;
+
+import java.util.ArrayList;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.estimators.vines.copulas.Copula;
+
+/**
+ * This is a BuildListener, which records the timings of the RVine
+ * construction. <br>
+ * It records the elapsed time of every phase and tree, and the selected
+ * copula of every edge. The records can be exported as data sets, e.g. to
+ * save them as ARFF or CSV file, or printed as table. <br>
+ * The records are reset when a new construction starts, so the timer can be
+ * added to a RegularVine once and read after every build.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class BuildTimer extends BuildAdapter {
+	private final ArrayList<double[]> phases = new ArrayList<double[]>();
+	private final ArrayList<double[]> trees = new ArrayList<double[]>();
+	private final ArrayList<Object[]> fits = new ArrayList<Object[]>();
+	private int numTrees;
+	private long total;
+
+	@Override
+	public synchronized void buildStarted(RegularVine vine, int trees) {
+		phases.clear();
+		this.trees.clear();
+		fits.clear();
+		numTrees = trees;
+		total = 0;
+	}
+
+	@Override
+	public synchronized void edgeFitted(int tree, Edge e, Copula c,
+			double logLik) {
+		fits.add(new Object[] { tree,
+				e.getFrom().getName() + " ; " + e.getTo().getName(),
+				c == null ? "?" : c.name(), logLik });
+	}
+
+	@Override
+	public synchronized void phaseFinished(int tree, Phase phase,
+			long elapsed) {
+		phases.add(new double[] { tree, phase.ordinal(), elapsed });
+	}
+
+	@Override
+	public synchronized void treeFinished(int tree, long elapsed) {
+		trees.add(new double[] { tree, elapsed });
+	}
+
+	@Override
+	public synchronized void buildFinished(long elapsed) {
+		total = elapsed;
+	}
+
+	@Override
+	public synchronized void buildFailed(long elapsed) {
+		total = elapsed;
+	}
+
+	/**
+	 * Get the total elapsed time of the last construction.
+	 *
+	 * @return the total time in milliseconds.
+	 */
+	public synchronized long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Get the elapsed time of a phase, summed over the trees.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @return the time in milliseconds.
+	 */
+	public synchronized long getTotal(Phase phase) {
+		long out = 0;
+		for (double[] p : phases) {
+			if (p[1] == phase.ordinal()) {
+				out += p[2];
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Get the phase timings of the last construction. <br>
+	 * Every instance is a phase with the attributes tree, phase and elapsed
+	 * time in milliseconds. The phases after the last tree have the tree -1.
+	 *
+	 * @return the phase timings as data set.
+	 */
+	public synchronized Instances getPhaseTimings() {
+		ArrayList<String> labels = new ArrayList<String>();
+		for (Phase p : Phase.values()) {
+			labels.add(p.name());
+		}
+
+		ArrayList<Attribute> atts = new ArrayList<Attribute>();
+		atts.add(new Attribute("tree"));
+		atts.add(new Attribute("phase", labels));
+		atts.add(new Attribute("elapsed"));
+
+		Instances out = new Instances("build-timings", atts, phases.size());
+		for (double[] p : phases) {
+			out.add(new DenseInstance(1, p.clone()));
+		}
+		return out;
+	}
+
+	/**
+	 * Get the edge fits of the last construction. <br>
+	 * Every instance is an edge with the attributes tree, edge, copula family
+	 * and log-likelihood.
+	 *
+	 * @return the edge fits as data set.
+	 */
+	public synchronized Instances getEdgeFits() {
+		ArrayList<Attribute> atts = new ArrayList<Attribute>();
+		atts.add(new Attribute("tree"));
+		atts.add(new Attribute("edge", (ArrayList<String>) null));
+		atts.add(new Attribute("family", (ArrayList<String>) null));
+		atts.add(new Attribute("loglik"));
+
+		Instances out = new Instances("edge-fits", atts, fits.size());
+		for (Object[] f : fits) {
+			double[] vals = new double[4];
+			vals[0] = (Integer) f[0];
+			vals[1] = out.attribute(1).addStringValue((String) f[1]);
+			vals[2] = out.attribute(2).addStringValue((String) f[2]);
+			vals[3] = (Double) f[3];
+			out.add(new DenseInstance(1, vals));
+		}
+		return out;
+	}
+
+	/**
+	 * Get the timings of the last construction as table. <br>
+	 * It has a row for every tree with the elapsed time of its phases.
+	 *
+	 * @return the timings as String.
+	 */
+	@Override
+	public synchronized String toString() {
+		Phase[] ps = Phase.values();
+		StringBuffer out = new StringBuffer();
+
+		out.append(Utils.padLeft("Tree", 6));
+		for (Phase p : ps) {
+			out.append(Utils.padLeft(p.name(), 11));
+		}
+		out.append(Utils.padLeft("TOTAL", 11)).append("\n");
+
+		// the trees first, then the phases after the last tree
+		for (int k = 0; k <= numTrees; k++) {
+			int t = k < numTrees ? k : -1;
+			long[] row = new long[ps.length];
+			boolean found = false;
+			for (double[] p : phases) {
+				if (p[0] == t) {
+					row[(int) p[1]] += p[2];
+					found = true;
+				}
+			}
+			if (!found) {
+				continue;
+			}
+
+			long sum = 0;
+			out.append(Utils.padLeft(t < 0 ? "-" : "T" + (t + 1), 6));
+			for (long r : row) {
+				out.append(Utils.padLeft(r + "ms", 11));
+				sum += r;
+			}
+			for (double[] tr : trees) {
+				if (tr[0] == t) {
+					sum = (long) tr[1];
+				}
+			}
+			out.append(Utils.padLeft(sum + "ms", 11)).append("\n");
+		}
+		out.append("Total time: " + total + "ms\n");
+		return out.toString();
+	}
+}
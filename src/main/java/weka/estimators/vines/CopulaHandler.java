@@ -2,19 +2,17 @@ package weka.estimators.vines;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Vector;
 
-import weka.core.ClassDiscovery;
-import weka.core.WekaPackageClassLoaderManager;
 import weka.estimators.vines.copulas.*;
 import weka.estimators.vines.functions.CopulaRotation;
 
 /**
  * This is an adapter class for copulas.
  * <br>
- * It uses Weka's ClassDiscovery and WekaPackageClassLoaderManager
- * to load copula classes from the weka.estimators.vines.copulas
- * package automatically.
+ * It uses the CopulaRegistry, which loads the copula classes from
+ * the weka.estimators.vines.copulas package once per JVM.
+ * New copulas are created by the registry's factories, which are looked up
+ * by the class names of the loaded copulas.
  * 
  * @author Christian Lamberty (clamber@students.uni-mainz.de)
  */
@@ -25,25 +23,14 @@ public class CopulaHandler implements Serializable{
 	/**
 	 * Constructor
 	 * <br>
-	 * Loads copulas from the package when initialized.
+	 * Gets the copulas from the registry when initialized.
 	 */
 	public CopulaHandler(){
-		Vector<String> copulaclasses = ClassDiscovery.find(
-				Copula.class,
-				"weka.estimators.vines.copulas");
-		copulas = new Copula[copulaclasses.size()];
+		CopulaRegistry registry = CopulaRegistry.getInstance();
+		copulas = new Copula[registry.size()];
 		
-		for(int i=0; i<copulaclasses.size(); i++){
-			try {
-				copulas[i] = (Copula) WekaPackageClassLoaderManager.forName(
-						copulaclasses.get(i)).newInstance();
-			} catch (ClassNotFoundException e) {
-				System.err.println("Cannot find "+copulaclasses.get(i));
-				// e.printStackTrace();
-			} catch (Exception e) {
-				System.err.println("Failed to load "+copulaclasses.get(i));
-				// e.printStackTrace();
-			}
+		for(int i=0; i<copulas.length; i++){
+			copulas[i] = registry.create(i);
 		}
 	}
 	
@@ -66,21 +53,18 @@ public class CopulaHandler implements Serializable{
 		
 		for(int i=0; i<copulas.length; i++){
 			if(c[i]){
-				try{
-					out.add(copulas[i].getClass().newInstance());
-					if(copulas[i].rotations()){
-						out.add(new CopulaRotation(
-								copulas[i].getClass().newInstance(),
-								CopulaRotation.Mode.ROT90));
-						out.add(new CopulaRotation(
-								copulas[i].getClass().newInstance(),
-								CopulaRotation.Mode.ROT180));
-						out.add(new CopulaRotation(
-								copulas[i].getClass().newInstance(),
-								CopulaRotation.Mode.ROT270));
-					}
-				} catch (Exception e){
-					System.out.println("Failed to load "+copulas[i].name());
+				Copula copula = create(copulas[i]);
+				if(copula == null){
+					continue;
+				}
+				out.add(copula);
+				if(copulas[i].rotations()){
+					out.add(new CopulaRotation(create(copulas[i]),
+							CopulaRotation.Mode.ROT90));
+					out.add(new CopulaRotation(create(copulas[i]),
+							CopulaRotation.Mode.ROT180));
+					out.add(new CopulaRotation(create(copulas[i]),
+							CopulaRotation.Mode.ROT270));
 				}
 			}
 		}
@@ -88,6 +72,29 @@ public class CopulaHandler implements Serializable{
 		return out.toArray(new Copula[out.size()]);
 	}
 	
+	/**
+	 * Creates a new copula of the same family.
+	 * <br>
+	 * The family is identified by its class, so a deserialized handler
+	 * creates the right copulae, even if the registry has a different
+	 * order. Families, which are not registered, are instantiated
+	 * reflectively.
+	 * @param c a copula of the family.
+	 * @return a new copula with default parameters or null, if the family
+	 * 			cannot be instantiated.
+	 */
+	private static Copula create(Copula c){
+		Copula out = CopulaRegistry.getInstance().create(c.getClass().getName());
+		if(out == null){
+			try {
+				out = c.getClass().getDeclaredConstructor().newInstance();
+			} catch (Exception e) {
+				System.err.println("Failed to load "+c.getClass().getName());
+			}
+		}
+		return out;
+	}
+	
 	/**
 	 * Get the loaded copula descriptions.
 	 * @return An array containing the indices and
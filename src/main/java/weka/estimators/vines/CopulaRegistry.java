@@ -0,0 +1,189 @@
+package weka.estimators.vines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Vector;
+import java.util.function.Supplier;
+
+import weka.core.ClassDiscovery;
+import weka.core.WekaPackageClassLoaderManager;
+import weka.estimators.vines.copulas.*;
+
+/**
+ * This is the registry of the available copula families.
+ * <br>
+ * The copula classes are discovered once per JVM, when the registry is
+ * used for the first time. Every family is represented by a factory,
+ * the copulae of this package are created by their constructors without
+ * reflection. Classes from other packages found by Weka's ClassDiscovery
+ * are instantiated reflectively.
+ * <br>
+ * The registry is immutable and can be shared by all threads.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public final class CopulaRegistry {
+	private final List<String> classNames;
+	private final List<Supplier<Copula>> factories;
+	private final HashMap<String, Supplier<Copula>> byName;
+
+	/**
+	 * Lazily initialized registry instance.
+	 */
+	private static class Holder {
+		static final CopulaRegistry instance = new CopulaRegistry();
+	}
+
+	/**
+	 * Get the registry.
+	 * @return the JVM-wide copula registry.
+	 */
+	public static CopulaRegistry getInstance(){
+		return Holder.instance;
+	}
+
+	/**
+	 * Constructor
+	 * <br>
+	 * Discovers the copula classes in the
+	 * weka.estimators.vines.copulas package.
+	 */
+	private CopulaRegistry(){
+		HashMap<String, Supplier<Copula>> builtIn = builtInFactories();
+
+		Vector<String> found = ClassDiscovery.find(
+				Copula.class,
+				"weka.estimators.vines.copulas");
+		if(found.isEmpty()){
+			// discovery failed, e.g. because of the class path setup
+			found = new Vector<String>(builtIn.keySet());
+			Collections.sort(found);
+		}
+
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<Supplier<Copula>> facs = new ArrayList<Supplier<Copula>>();
+		byName = new HashMap<String, Supplier<Copula>>();
+
+		for(String name : found){
+			Supplier<Copula> f = builtIn.get(name);
+			if(f == null){
+				f = reflectiveFactory(name);
+			}
+			if(f != null){
+				names.add(name);
+				facs.add(f);
+				byName.put(name, f);
+			}
+		}
+
+		classNames = Collections.unmodifiableList(names);
+		factories = Collections.unmodifiableList(facs);
+	}
+
+	/**
+	 * Get the number of registered copula families.
+	 * @return the number of copula families.
+	 */
+	public int size(){
+		return factories.size();
+	}
+
+	/**
+	 * Creates a new copula of a registered family.
+	 * @param i index of the copula family.
+	 * @return a new copula with default parameters.
+	 */
+	public Copula create(int i){
+		return factories.get(i).get();
+	}
+
+	/**
+	 * Creates a new copula of a registered family by its class name.
+	 * <br>
+	 * Unlike the index, the class name identifies the family independent
+	 * of the discovery order.
+	 * @param name class name of the copula family.
+	 * @return a new copula with default parameters or null, if the family
+	 * 			is not registered.
+	 */
+	public Copula create(String name){
+		Supplier<Copula> f = byName.get(name);
+		return f == null ? null : f.get();
+	}
+
+	/**
+	 * Get the class names of the registered copula families.
+	 * @return the class names as unmodifiable list.
+	 */
+	public List<String> getClassNames(){
+		return classNames;
+	}
+
+	/**
+	 * Creates the factories for the copulae of this package.
+	 * @return the factories mapped by class name.
+	 */
+	private static HashMap<String, Supplier<Copula>> builtInFactories(){
+		HashMap<String, Supplier<Copula>> out =
+				new HashMap<String, Supplier<Copula>>();
+
+		out.put(ClaytonCopula.class.getName(), new Supplier<Copula>(){
+			public Copula get() { return new ClaytonCopula(); }
+		});
+		out.put(FGMCopula.class.getName(), new Supplier<Copula>(){
+			public Copula get() { return new FGMCopula(); }
+		});
+		out.put(FrankCopula.class.getName(), new Supplier<Copula>(){
+			public Copula get() { return new FrankCopula(); }
+		});
+		out.put(GalambosCopula.class.getName(), new Supplier<Copula>(){
+			public Copula get() { return new GalambosCopula(); }
+		});
+		out.put(GaussCopula.class.getName(), new Supplier<Copula>(){
+			public Copula get() { return new GaussCopula(); }
+		});
+		out.put(GumbelCopula.class.getName(), new Supplier<Copula>(){
+			public Copula get() { return new GumbelCopula(); }
+		});
+		out.put(IndependenceCopula.class.getName(), new Supplier<Copula>(){
+			public Copula get() { return new IndependenceCopula(); }
+		});
+		out.put(TCopula.class.getName(), new Supplier<Copula>(){
+			public Copula get() { return new TCopula(); }
+		});
+
+		return out;
+	}
+
+	/**
+	 * Creates a reflective factory for a discovered copula class.
+	 * @param name the class name.
+	 * @return the factory or null, if the class cannot be instantiated.
+	 */
+	private static Supplier<Copula> reflectiveFactory(String name){
+		try {
+			final Class<?> cls = WekaPackageClassLoaderManager.forName(name);
+			// fail early for classes without a default constructor
+			cls.getDeclaredConstructor().newInstance();
+
+			return new Supplier<Copula>(){
+				public Copula get() {
+					try {
+						return (Copula) cls.getDeclaredConstructor()
+								.newInstance();
+					} catch (Exception e) {
+						throw new IllegalStateException("Failed to load "
+								+ cls.getName(), e);
+					}
+				}
+			};
+		} catch (ClassNotFoundException e) {
+			System.err.println("Cannot find "+name);
+		} catch (Exception e) {
+			System.err.println("Failed to load "+name);
+		}
+		return null;
+	}
+}
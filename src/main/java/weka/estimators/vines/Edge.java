@@ -17,6 +17,7 @@ public class Edge implements Serializable{
 	private Node from;
 	private Node to;
 	private double weight;
+	private double tau = Double.NaN;
 	private Copula copula;
 	private String label;
 	private double logLik;
@@ -65,6 +66,22 @@ public class Edge implements Serializable{
 		this.weight = weight;
 	}
 	
+	/**
+	 * Get the signed empirical Kendall's tau.
+	 * @return returns Kendall's tau or NaN, if it was not computed.
+	 */
+	public double getTau() {
+		return tau;
+	}
+
+	/**
+	 * Set the signed empirical Kendall's tau.
+	 * @param tau the Kendall's tau value.
+	 */
+	public void setTau(double tau) {
+		this.tau = tau;
+	}
+	
 	/**
 	 * Get the String representation of the Edge.
 	 * @return returns the Edge as String.
@@ -0,0 +1,293 @@
+package weka.estimators.vines;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import weka.estimators.vines.copulas.Copula;
+
+/**
+ * This is a cache for the pairwise computations of the RVine construction.
+ * <br>
+ * It memoizes the empirical Kendall's tau and the MLE results of the copula
+ * families for pairs of observation arrays. The arrays are looked up by a
+ * fingerprint of their values and compared element-wise on a match, so
+ * RegularVines built on the same data share their results, e.g. the first
+ * tree of the configurations of a hyper-parameter sweep. Later trees share
+ * their results as long as the pseudo observations are the same.
+ * <br>
+ * The cache is not stored with the RegularVine. It is shared by setting it on
+ * every RegularVine that shall use it and can be used by parallel builds. It
+ * keeps the observation arrays of its entries and grows with every new data
+ * set, so it shall be scoped to the experiment and cleared or dropped
+ * afterwards.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class FitCache {
+	private final ConcurrentHashMap<Key, Double> taus =
+			new ConcurrentHashMap<Key, Double>();
+	private final ConcurrentHashMap<Key, double[]> fits =
+			new ConcurrentHashMap<Key, double[]>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Get the (weighted) empirical Kendall's tau. <br>
+	 * See VineUtils.kendallsTau(a, b, w).
+	 *
+	 * @param a
+	 *            data of variable.
+	 * @param b
+	 *            data of another variable.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @return returns the empirical Kendall's tau for a and b.
+	 */
+	public double kendallsTau(double[] a, double[] b, double[] w) {
+		Key k = new Key(null, a, b, w);
+		Double tau = taus.get(k);
+		if (tau != null) {
+			hits.incrementAndGet();
+			return tau;
+		}
+		misses.incrementAndGet();
+
+		tau = VineUtils.kendallsTau(a, b, w);
+		taus.put(k, tau);
+		return tau;
+	}
+
+	/**
+	 * MLE to estimate the copula parameters on weighted observations. <br>
+	 * For a cached result, the parameters are set on c without optimization.
+	 * See Copula.mle(a, b, w).
+	 *
+	 * @param c
+	 *            the copula to be fitted.
+	 * @param a
+	 *            data of variable.
+	 * @param b
+	 *            data of another variable.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @return returns the maximum likelihood.
+	 */
+	public double mle(Copula c, double[] a, double[] b, double[] w) {
+		Key k = new Key(family(c), a, b, w);
+		double[] fit = fits.get(k);
+		if (fit != null) {
+			hits.incrementAndGet();
+			c.setParams(Arrays.copyOf(fit, fit.length - 1));
+			return fit[fit.length - 1];
+		}
+		misses.incrementAndGet();
+
+		double ll = c.mle(a, b, w);
+		put(k, c, ll);
+		return ll;
+	}
+
+	/**
+	 * MLE to estimate the copula parameters with a given start and a limited
+	 * number of iterations. <br>
+	 * The start parameters and the number of iterations are part of the
+	 * cache key. For a cached result, the parameters are set on c without
+	 * optimization. See Copula.mle(a, b, w, start, maxIter).
+	 *
+	 * @param c
+	 *            the copula to be fitted.
+	 * @param a
+	 *            data of variable.
+	 * @param b
+	 *            data of another variable.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @param start
+	 *            the start parameters.
+	 * @param maxIter
+	 *            the maximal number of iterations.
+	 * @return returns the maximum likelihood.
+	 */
+	public double mle(Copula c, double[] a, double[] b, double[] w,
+			double[] start, int maxIter) {
+		Key k = new Key(family(c) + ":" + maxIter + ":"
+				+ Arrays.toString(start), a, b, w);
+		double[] fit = fits.get(k);
+		if (fit != null) {
+			hits.incrementAndGet();
+			c.setParams(Arrays.copyOf(fit, fit.length - 1));
+			return fit[fit.length - 1];
+		}
+		misses.incrementAndGet();
+
+		double ll = c.mle(a, b, w, start, maxIter);
+		put(k, c, ll);
+		return ll;
+	}
+
+	/**
+	 * Stores the parameters of a fitted copula and its log-likelihood.
+	 *
+	 * @param k
+	 *            the cache key.
+	 * @param c
+	 *            the fitted copula.
+	 * @param ll
+	 *            the log-likelihood.
+	 */
+	private void put(Key k, Copula c, double ll) {
+		double[] pars = c.getParams();
+		double[] fit = Arrays.copyOf(pars, pars.length + 1);
+		fit[pars.length] = ll;
+		fits.put(k, fit);
+	}
+
+	/**
+	 * Get the number of cache hits.
+	 *
+	 * @return the number of computations, which were taken from the cache.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Get the number of cache misses.
+	 *
+	 * @return the number of computations, which were added to the cache.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Get the number of cached results.
+	 *
+	 * @return the number of cached tau values and MLE results.
+	 */
+	public int size() {
+		return taus.size() + fits.size();
+	}
+
+	/**
+	 * Removes all cached results.
+	 */
+	public void clear() {
+		taus.clear();
+		fits.clear();
+		hits.set(0);
+		misses.set(0);
+	}
+
+	/**
+	 * Get the identifier of a copula family, including its rotation.
+	 *
+	 * @param c
+	 *            a copula.
+	 * @return returns the family identifier.
+	 */
+	private static String family(Copula c) {
+		return c.getClass().getName() + ":" + c.token();
+	}
+
+	/**
+	 * Computes the fingerprint of an observation array. <br>
+	 * It is a 64-bit hash of the values, null has the fingerprint 0.
+	 *
+	 * @param x
+	 *            an observation array.
+	 * @return returns the fingerprint.
+	 */
+	static long fingerprint(double[] x) {
+		if (x == null) {
+			return 0;
+		}
+		long h = 0xcbf29ce484222325L ^ x.length;
+		for (double d : x) {
+			h ^= Double.doubleToLongBits(d);
+			h *= 0x100000001b3L;
+			h ^= h >>> 29;
+		}
+		return h;
+	}
+
+	/**
+	 * The cache key of a computation on a pair of observation arrays. <br>
+	 * It keeps the arrays, the fingerprints only speed up the comparison.
+	 */
+	static class Key {
+		private final String family;
+		private final double[] a, b, w;
+		private final long fa, fb, fw;
+
+		/**
+		 * Constructor
+		 *
+		 * @param family
+		 *            the copula family or null for Kendall's tau.
+		 * @param a
+		 *            data of variable.
+		 * @param b
+		 *            data of another variable.
+		 * @param w
+		 *            observation weights, null for unit weights.
+		 */
+		Key(String family, double[] a, double[] b, double[] w) {
+			this(family, a, b, w, fingerprint(a), fingerprint(b),
+					fingerprint(w));
+		}
+
+		/**
+		 * Constructor with given fingerprints.
+		 *
+		 * @param family
+		 *            the copula family or null for Kendall's tau.
+		 * @param a
+		 *            data of variable.
+		 * @param b
+		 *            data of another variable.
+		 * @param w
+		 *            observation weights, null for unit weights.
+		 * @param fa
+		 *            fingerprint of a.
+		 * @param fb
+		 *            fingerprint of b.
+		 * @param fw
+		 *            fingerprint of w.
+		 */
+		Key(String family, double[] a, double[] b, double[] w, long fa,
+				long fb, long fw) {
+			this.family = family;
+			this.a = a;
+			this.b = b;
+			this.w = w;
+			this.fa = fa;
+			this.fb = fb;
+			this.fw = fw;
+		}
+
+		@Override
+		public int hashCode() {
+			long h = fa * 31 + fb;
+			h = h * 31 + fw;
+			if (family != null) {
+				h = h * 31 + family.hashCode();
+			}
+			return (int) (h ^ (h >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return fa == k.fa && fb == k.fb && fw == k.fw
+					&& (family == null ? k.family == null
+							: family.equals(k.family))
+					&& Arrays.equals(a, k.a) && Arrays.equals(b, k.b)
+					&& Arrays.equals(w, k.w);
+		}
+	}
+}
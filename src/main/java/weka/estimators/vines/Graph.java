@@ -59,6 +59,7 @@ public class Graph implements Serializable{
 		ArrayList<Edge> edgeList = adjacencyList.get(from);
 		ArrayList<Edge> edgeList2 = adjacencyList.get(to);
 		e2.setCopula(e.getCopula());
+		e2.setTau(e.getTau());
 		edgeList.add(e);
 		edgeList2.add(e2);
 	}
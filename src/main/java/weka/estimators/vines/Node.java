@@ -1,5 +1,7 @@
 package weka.estimators.vines;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -210,4 +212,19 @@ public class Node implements Comparable<Node>, Serializable{
 		Integer b = o.hashCode();
 		return a.compareTo(b);
 	}
+
+	/**
+	 * Rebuilds the set of merged Nodes after deserialization.
+	 * <br>
+	 * The Nodes are ordered by their hash codes, which change
+	 * when they are read, so the stored order is not valid anymore.
+	 * @param in the object input stream.
+	 */
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if(mergedFrom != null){
+			mergedFrom = new TreeSet<Node>(new ArrayList<Node>(mergedFrom));
+		}
+	}
 }
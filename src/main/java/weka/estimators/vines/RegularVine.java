@@ -4,10 +4,15 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
 import java.util.TreeSet;
 
 import weka.core.CommandlineRunnable;
@@ -16,10 +21,20 @@ import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.Option;
 import weka.core.OptionMetadata;
+import weka.core.SerializedObject;
 import weka.estimators.DensityEstimator;
+import weka.estimators.WeightedDensityEstimator;
+import weka.estimators.vines.BuildListener.Phase;
 import weka.estimators.vines.copulas.Copula;
 import weka.estimators.vines.copulas.IndependenceCopula;
 import weka.gui.ProgrammaticProperty;
+import umontreal.ssj.hups.HaltonSequence;
+import umontreal.ssj.hups.LMScrambleShift;
+import umontreal.ssj.hups.PointSet;
+import umontreal.ssj.hups.PointSetIterator;
+import umontreal.ssj.hups.SobolSequence;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.rng.MRG32k3a;
 
 /**
  * This class represents the Regular Vine. <br>
@@ -32,11 +47,22 @@ import weka.gui.ProgrammaticProperty;
  * 
  * @author Christian Lamberty (clamber@students.uni-mainz.de)
  */
-public class RegularVine implements DensityEstimator, CommandlineRunnable,
-		Serializable {
+public class RegularVine implements DensityEstimator,
+		WeightedDensityEstimator, CommandlineRunnable, Serializable {
 	private static final long serialVersionUID = -5876664157542627697L;
+	public static final int CHUNK_SIZE = 4096;
+
+	/**
+	 * The sources of uniform observations for the bulk sampling. <br>
+	 * RANDOM uses pseudo random numbers, SOBOL and HALTON use randomized
+	 * low-discrepancy point sets.
+	 */
+	public enum Sampling {
+		RANDOM, SOBOL, HALTON
+	}
+
 	protected boolean built, timestamps, help, loaded, rvm, fam, parm, pllm,
-			taum, etaum, sum;
+			taum, etaum, sum, indepTest, compress, gof;
 	protected String filepath;
 	protected CopulaHandler ch = new CopulaHandler();
 	protected boolean[] selected;
@@ -44,10 +70,25 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 	protected int[][] m;
 	protected Edge[][] edges;
 	protected Instances data;
+	protected double[] weights;
+	protected double[] weightSquares;
 	protected TrainMethod trainMethod = TrainMethod.KENDALL;
 	protected BuildMethod buildMethod = BuildMethod.REGULAR;
 	protected double threshold = 0.1;
 	protected int cvFolds = 10;
+	protected double alpha = 0.05;
+	protected int subsample = 0;
+	protected int seed = 1;
+	protected int updateIterations = 5;
+	protected double updateRate = 0;
+	protected long numObservations;
+	protected double priorTolerance = 0.05;
+	protected double[][] empTau;
+	protected int numExecutionSlots = 1;
+	protected int gofReplicates = 200;
+	protected transient FitCache fitCache;
+	protected transient ArrayList<BuildListener> buildListeners;
+	private transient ArrayList<BuildListener> building;
 
 	/**
 	 * This is an enum class for possible training methods. KENDALL - Use
@@ -88,180 +129,666 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 		taum = false;
 		etaum = false;
 		sum = false;
+		indepTest = false;
+		compress = false;
+		gof = false;
 		filepath = "";
 	}
 
 	/**
 	 * Build the Regular Vine density estimator on the given data set. <br>
 	 * See the model selection algorithm presented in J.F. Di&szlig;mann's
-	 * diploma thesis.
+	 * diploma thesis. <br>
+	 * The instance weights are used as observation weights.
 	 * 
 	 * @param data
 	 *            the training data set to build the estimator on.
 	 */
 	@Override
 	public void buildEstimator(Instances data) {
+		buildEstimator(data, instanceWeights(data));
+	}
+
+	/**
+	 * Get the instance weights of a data set.
+	 * 
+	 * @param data
+	 *            the data set.
+	 * @return the instance weights, or null if all weights are 1.
+	 */
+	private static double[] instanceWeights(Instances data) {
+		double[] out = new double[data.numInstances()];
+		boolean unit = true;
+		for (int i = 0; i < out.length; i++) {
+			out[i] = data.instance(i).weight();
+			unit &= out[i] == 1;
+		}
+		return unit ? null : out;
+	}
+
+	/**
+	 * Build the Regular Vine density estimator on weighted observations. <br>
+	 * The weights enter Kendall's tau and the copula MLEs. The pseudo
+	 * observations of the higher trees stay aligned with the instances, so
+	 * the weights carry over to all trees.
+	 * 
+	 * @param data
+	 *            the training data set to build the estimator on.
+	 * @param weights
+	 *            one weight per instance, null for unit weights.
+	 */
+	@Override
+	public void buildEstimator(Instances data, double[] weights) {
+		TrainingData td = prepare(data, weights);
+		Instances full = td.full;
+		double[] fullWeights = td.fullWeights;
+		double[] fullSq = td.fullSq;
+		data = td.data;
+		weights = td.weights;
+		double[] sq = td.sq;
+
 		rvine = new Graph[data.numAttributes() - 1];
+		empTau = new double[data.numAttributes()][data.numAttributes()];
 		this.data = data;
+		this.weights = weights;
+		this.weightSquares = sq;
 		Graph g = new Graph();
 
-		double start = System.currentTimeMillis();
-		double stamp = start;
+		long start = buildStarted();
+		boolean finished = false;
+		try {
+			long tree = treeStarted(0);
+			long stamp = phaseStarted(0, Phase.WEIGHTING);
+
+			// initialize nodes
+			for (int i = 1; i <= data.numAttributes(); i++) {
+				Node n = new Node(i);
+				n.putData(i, data.attributeToDoubleArray(i - 1));
+				g.addNode(n);
+			}
 
-		if (timestamps) {
-			System.out.println("Building T1 ...");
-			if (trainMethod == TrainMethod.CV) {
-				System.out.print("\t Compute Cross-Validated Likelihood... ");
-			} else {
-				System.out.print("\t Compute Kendall's tau... ");
+			// initialize edges
+			for (int i = 0; i < g.getNodeList().size(); i++) {
+				for (int j = i + 1; j < g.getNodeList().size(); j++) {
+					Node a = g.getNodeList().get(i);
+					Node b = g.getNodeList().get(j);
+					Edge e = new Edge(a, b, 0);
+					weightEdge(e);
+					g.addEdge(e);
+					empTau[i][j] = e.getTau();
+					empTau[j][i] = e.getTau();
+				}
+			}
+
+			phaseFinished(0, Phase.WEIGHTING, stamp);
+			stamp = phaseStarted(0, Phase.MST);
+
+			// calculate maximal spanning tree of graph
+			g = VineUtils.maxSpanTree(g);
+
+			phaseFinished(0, Phase.MST, stamp);
+			stamp = phaseStarted(0, Phase.FITTING);
+
+			// fit copulas to the edges
+			for (Edge e : g.getUndirectedEdgeList()) {
+				selectCopula(e, 0);
+				edgeFitted(0, e);
+			}
+
+			phaseFinished(0, Phase.FITTING, stamp);
+			treeFinished(0, tree);
+
+			// add graph to rvine
+			rvine[0] = g;
+
+			// until regular vine is fully specified, do:
+			for (int lev = 1; lev < rvine.length; lev++) {
+				tree = treeStarted(lev);
+				Graph gNext = new Graph();
+				g = rvine[lev - 1];
+
+				stamp = phaseStarted(lev, Phase.MERGE);
+
+				// for all edges of MST, do
+				for (Edge e : g.getUndirectedEdgeList()) {
+					gNext.addNode(mergeNodes(e));
+				}
+
+				phaseFinished(lev, Phase.MERGE, stamp);
+				stamp = phaseStarted(lev, Phase.WEIGHTING);
+
+				// calculate kendall's tau and add edges to graph,
+				// for all possible edges (proximity condition)
+				for (int i = 0; i < gNext.getNodeList().size(); i++) {
+					for (int j = i + 1; j < gNext.getNodeList().size(); j++) {
+						Node a = gNext.getNodeList().get(i);
+						Node b = gNext.getNodeList().get(j);
+
+						if (a.isIntersected(b)) {
+							Edge e = new Edge(a, b, 0);
+							weightEdge(e);
+							gNext.addEdge(e);
+						}
+					}
+				}
+
+				phaseFinished(lev, Phase.WEIGHTING, stamp);
+				stamp = phaseStarted(lev, Phase.MST);
+
+				// calculate maximal spanning tree of graph
+				gNext = VineUtils.maxSpanTree(gNext);
+
+				phaseFinished(lev, Phase.MST, stamp);
+				stamp = phaseStarted(lev, Phase.FITTING);
+
+				// fit copulas to the edges
+				for (Edge e : gNext.getUndirectedEdgeList()) {
+					selectCopula(e, lev);
+					edgeFitted(lev, e);
+				}
+
+				phaseFinished(lev, Phase.FITTING, stamp);
+				treeFinished(lev, tree);
+
+				rvine[lev] = gNext;
+			}
+
+			// Use merge only to set last Edge label
+			for (Edge e : rvine[rvine.length - 1].getUndirectedEdgeList()) {
+				mergeNodes(e);
 			}
+
+			if (full != data) {
+				this.data = full;
+				this.weights = fullWeights;
+				this.weightSquares = fullSq;
+				refit(full);
+			}
+			numObservations = Math.round(effectiveSize());
+
+			stamp = phaseStarted(-1, Phase.MATRIX);
+
+			createRVineMatrix();
+			built = true;
+
+			phaseFinished(-1, Phase.MATRIX, stamp);
+			finished = true;
+		} finally {
+			buildFinished(start, finished);
 		}
+	}
 
-		// initialize nodes
-		for (int i = 1; i <= data.numAttributes(); i++) {
-			Node n = new Node(i);
-			n.putData(i, data.attributeToDoubleArray(i - 1));
-			g.addNode(n);
+	/**
+	 * Get the listeners for a new construction. <br>
+	 * If timestamps are enabled, a listener printing them is included.
+	 * 
+	 * @return the listeners.
+	 */
+	private synchronized ArrayList<BuildListener> activeListeners() {
+		ArrayList<BuildListener> out = new ArrayList<BuildListener>();
+		if (buildListeners != null) {
+			out.addAll(buildListeners);
+		}
+		if (timestamps) {
+			out.add(new TimestampPrinter(trainMethod));
+		}
+		return out;
+	}
+
+	/**
+	 * Notifies the listeners about a started construction. <br>
+	 * The listeners are fixed until the construction is finished.
+	 * 
+	 * @return the start time.
+	 */
+	private long buildStarted() {
+		building = activeListeners();
+		for (BuildListener l : building) {
+			l.buildStarted(this, rvine.length);
 		}
+		return System.currentTimeMillis();
+	}
 
-		// initialize edges
-		for (int i = 0; i < g.getNodeList().size(); i++) {
-			for (int j = i + 1; j < g.getNodeList().size(); j++) {
-				Node a = g.getNodeList().get(i);
-				Node b = g.getNodeList().get(j);
-				Edge e = new Edge(a, b, 0);
-				weightEdge(e);
-				g.addEdge(e);
+	/**
+	 * Notifies the listeners about a finished or failed construction.
+	 * 
+	 * @param start
+	 *            the start time.
+	 * @param finished
+	 *            whether the construction was finished without exception.
+	 */
+	private void buildFinished(long start, boolean finished) {
+		long elapsed = System.currentTimeMillis() - start;
+		for (BuildListener l : building) {
+			if (finished) {
+				l.buildFinished(elapsed);
+			} else {
+				l.buildFailed(elapsed);
 			}
 		}
+		building = null;
+	}
 
-		if (timestamps) {
-			double time = System.currentTimeMillis();
-			System.out.println("finished! ~ " + (time - stamp) + "ms");
-			System.out.print("\t Compute max. spanning tree... ");
-			stamp = time;
+	/**
+	 * Notifies the listeners about a started tree.
+	 * 
+	 * @param tree
+	 *            the tree index.
+	 * @return the start time.
+	 */
+	private long treeStarted(int tree) {
+		for (BuildListener l : building) {
+			l.treeStarted(tree);
 		}
+		return System.currentTimeMillis();
+	}
 
-		// calculate maximal spanning tree of graph
-		g = VineUtils.maxSpanTree(g);
+	/**
+	 * Notifies the listeners about a finished tree.
+	 * 
+	 * @param tree
+	 *            the tree index.
+	 * @param start
+	 *            the start time.
+	 */
+	private void treeFinished(int tree, long start) {
+		long elapsed = System.currentTimeMillis() - start;
+		for (BuildListener l : building) {
+			l.treeFinished(tree, elapsed);
+		}
+	}
 
-		if (timestamps) {
-			double time = System.currentTimeMillis();
-			System.out.println("finished! ~ " + (time - stamp) + "ms");
-			System.out.print("\t Compute fitting Copulae... ");
-			stamp = time;
+	/**
+	 * Notifies the listeners about a started phase.
+	 * 
+	 * @param tree
+	 *            the tree index.
+	 * @param phase
+	 *            the phase.
+	 * @return the start time.
+	 */
+	private long phaseStarted(int tree, Phase phase) {
+		for (BuildListener l : building) {
+			l.phaseStarted(tree, phase);
 		}
+		return System.currentTimeMillis();
+	}
 
-		// fit copulas to the edges
-		for (Edge e : g.getUndirectedEdgeList()) {
-			selectCopula(e, 0);
+	/**
+	 * Notifies the listeners about a finished phase.
+	 * 
+	 * @param tree
+	 *            the tree index.
+	 * @param phase
+	 *            the phase.
+	 * @param start
+	 *            the start time.
+	 */
+	private void phaseFinished(int tree, Phase phase, long start) {
+		long elapsed = System.currentTimeMillis() - start;
+		for (BuildListener l : building) {
+			l.phaseFinished(tree, phase, elapsed);
 		}
+	}
 
-		if (timestamps) {
-			double time = System.currentTimeMillis();
-			System.out.println("finished! ~ " + (time - stamp) + "ms");
-			stamp = time;
+	/**
+	 * Notifies the listeners about a fitted edge.
+	 * 
+	 * @param tree
+	 *            the tree index.
+	 * @param e
+	 *            the edge.
+	 */
+	private void edgeFitted(int tree, Edge e) {
+		for (BuildListener l : building) {
+			l.edgeFitted(tree, e, e.getCopula(), e.getLogLik());
 		}
+	}
 
-		// add graph to rvine
-		rvine[0] = g;
+	/**
+	 * This is the BuildListener for the timestamps option. <br>
+	 * It prints the elapsed time of every phase to the standard output.
+	 */
+	private static class TimestampPrinter extends BuildAdapter {
+		private final TrainMethod trainMethod;
 
-		// until regular vine is fully specified, do:
-		for (int lev = 1; lev < rvine.length; lev++) {
-			stamp = System.currentTimeMillis();
-			Graph gNext = new Graph();
-			g = rvine[lev - 1];
+		/**
+		 * Constructor
+		 * 
+		 * @param trainMethod
+		 *            the training method of the RVine.
+		 */
+		TimestampPrinter(TrainMethod trainMethod) {
+			this.trainMethod = trainMethod;
+		}
 
-			if (timestamps) {
-				double time = System.currentTimeMillis();
-				System.out.println("Building T" + (lev + 1) + "... ");
-				System.out.print("\t Merge Nodes... ");
-				stamp = time;
+		@Override
+		public void treeStarted(int tree) {
+			System.out.println("Building T" + (tree + 1) + " ...");
+		}
+
+		@Override
+		public void phaseStarted(int tree, Phase phase) {
+			String prefix = tree < 0 ? "" : "\t ";
+			switch (phase) {
+			case WEIGHTING:
+				if (trainMethod == TrainMethod.CV) {
+					System.out.print(prefix
+							+ "Compute Cross-Validated Likelihood... ");
+				} else {
+					System.out.print(prefix + "Compute Kendall's tau... ");
+				}
+				break;
+			case MST:
+				System.out.print(prefix + "Compute max. spanning tree... ");
+				break;
+			case FITTING:
+				System.out.print(prefix + "Compute fitting Copulae... ");
+				break;
+			case MERGE:
+				System.out.print(prefix + "Merge Nodes... ");
+				break;
+			case REFIT:
+				System.out.print(prefix + "Refit Copulae on full data... ");
+				break;
+			case MATRIX:
+				System.out.print(prefix + "Building Matrices... ");
+				break;
 			}
+		}
 
-			// for all edges of MST, do
-			for (Edge e : g.getUndirectedEdgeList()) {
-				gNext.addNode(mergeNodes(e));
+		@Override
+		public void phaseFinished(int tree, Phase phase, long elapsed) {
+			System.out.println("finished! ~ " + elapsed + "ms");
+		}
+
+		@Override
+		public void buildFinished(long elapsed) {
+			System.out.println("Total time: " + elapsed + "ms");
+			System.out.println();
+		}
+
+		@Override
+		public void buildFailed(long elapsed) {
+			System.out.println("failed! ~ " + elapsed + "ms");
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Prepares the training data of a build. <br>
+	 * Duplicate rows are collapsed, if requested, and the structure data is
+	 * drawn as a subsample, if requested.
+	 * 
+	 * @param data
+	 *            the training data set.
+	 * @param weights
+	 *            one weight per instance, null for unit weights.
+	 * @return the structure data and the full data.
+	 */
+	private TrainingData prepare(Instances data, double[] weights) {
+		// the summed squared weights of the collapsed rows
+		double[] sq = null;
+
+		// collapse duplicate rows, if requested
+		if (compress) {
+			double[][] cols = new double[data.numAttributes()][];
+			for (int i = 0; i < cols.length; i++) {
+				cols[i] = data.attributeToDoubleArray(i);
 			}
 
-			if (timestamps) {
-				double time = System.currentTimeMillis();
-				System.out.println("finished! ~ " + (time - stamp) + "ms");
-				if (trainMethod == TrainMethod.CV) {
-					System.out
-							.print("\t Compute Cross-Validated Likelihood... ");
+			HashMap<Row, Integer> rows = new HashMap<Row, Integer>();
+			ArrayList<Integer> unique = new ArrayList<Integer>();
+			ArrayList<Double> counts = new ArrayList<Double>();
+			ArrayList<Double> squares = new ArrayList<Double>();
+			for (int i = 0; i < data.numInstances(); i++) {
+				double w = weights == null ? 1 : weights[i];
+				Row r = new Row(cols, i);
+				Integer k = rows.get(r);
+				if (k == null) {
+					rows.put(r, unique.size());
+					unique.add(i);
+					counts.add(w);
+					squares.add(w * w);
 				} else {
-					System.out.print("\t Compute Kendall's tau... ");
+					counts.set(k, counts.get(k) + w);
+					squares.set(k, squares.get(k) + w * w);
 				}
-				stamp = time;
 			}
 
-			// calculate kendall's tau and add edges to graph,
-			// for all possible edges (proximity condition)
-			for (int i = 0; i < gNext.getNodeList().size(); i++) {
-				for (int j = i + 1; j < gNext.getNodeList().size(); j++) {
-					Node a = gNext.getNodeList().get(i);
-					Node b = gNext.getNodeList().get(j);
-
-					if (a.isIntersected(b)) {
-						Edge e = new Edge(a, b, 0);
-						weightEdge(e);
-						gNext.addEdge(e);
-					}
+			if (unique.size() < data.numInstances()) {
+				Instances compressed = new Instances(data, unique.size());
+				weights = new double[unique.size()];
+				sq = new double[unique.size()];
+				for (int i = 0; i < unique.size(); i++) {
+					compressed.add(data.instance(unique.get(i)));
+					weights[i] = counts.get(i);
+					sq[i] = squares.get(i);
 				}
+				data = compressed;
 			}
+		}
 
-			if (timestamps) {
-				double time = System.currentTimeMillis();
-				System.out.println("finished! ~ " + (time - stamp) + "ms");
-				System.out.print("\t Compute max. spanning tree... ");
-				stamp = time;
+		// select the structure on a subsample, if requested
+		TrainingData td = new TrainingData();
+		td.full = data;
+		td.fullWeights = weights;
+		td.fullSq = sq;
+		if (subsample > 0 && subsample < data.numInstances()) {
+			int[] idx = subsample(data.numInstances());
+			data = new Instances(data, subsample);
+			for (int i = 0; i < idx.length; i++) {
+				data.add(td.full.instance(idx[i]));
 			}
+			if (weights != null) {
+				weights = new double[idx.length];
+				for (int i = 0; i < idx.length; i++) {
+					weights[i] = td.fullWeights[idx[i]];
+				}
+			}
+			if (sq != null) {
+				sq = new double[idx.length];
+				for (int i = 0; i < idx.length; i++) {
+					sq[i] = td.fullSq[idx[i]];
+				}
+			}
+		}
 
-			// calculate maximal spanning tree of graph
-			gNext = VineUtils.maxSpanTree(gNext);
 
-			if (timestamps) {
-				double time = System.currentTimeMillis();
-				System.out.println("finished! ~ " + (time - stamp) + "ms");
-				System.out.print("\t Compute fitting Copulae... ");
-				stamp = time;
+		td.data = data;
+		td.weights = weights;
+		td.sq = sq;
+		return td;
+	}
+
+	/**
+	 * Build the Regular Vine density estimator, starting from a previously
+	 * built RVine. <br>
+	 * If the pairwise Kendall's tau values of the first tree differ by at
+	 * most the prior tolerance, the prior structure is kept. Edges whose
+	 * empirical tau stayed within the tolerance keep their copula family and
+	 * start the MLE at the prior parameters, the other edges select their
+	 * copula again. Otherwise, the RVine is built from scratch. <br>
+	 * The options of the cold build apply, i.e. duplicate rows are
+	 * collapsed and the structure is selected on a subsample, if requested,
+	 * and the kept edges pass the independence test and the build method.
+	 * With CV weighting, the RVine is always built from scratch, since the
+	 * edge weights are the copula fits. <br>
+	 * The listeners are notified like in a cold build, the kept structure
+	 * has no MST phase.
+	 * 
+	 * @param data
+	 *            the training data set to build the estimator on.
+	 * @param prior
+	 *            a built RVine on the same attributes.
+	 */
+	public void buildEstimator(Instances data, RegularVine prior) {
+		if (prior == null || !prior.built || prior.empTau == null
+				|| prior.empTau.length != data.numAttributes()
+				|| trainMethod == TrainMethod.CV) {
+			buildEstimator(data);
+			return;
+		}
+
+		Instances input = data;
+		TrainingData td = prepare(data, instanceWeights(data));
+		data = td.data;
+		double[] weights = td.weights;
+
+		// compare the tau matrices
+		double[][] tau = new double[data.numAttributes()][data.numAttributes()];
+		double[][] cols = new double[data.numAttributes()][];
+		for (int i = 0; i < cols.length; i++) {
+			cols[i] = data.attributeToDoubleArray(i);
+		}
+		for (int i = 0; i < cols.length; i++) {
+			for (int j = i + 1; j < cols.length; j++) {
+				tau[i][j] = fitCache != null ? fitCache.kendallsTau(cols[i],
+						cols[j], weights) : VineUtils.kendallsTau(cols[i],
+						cols[j], weights);
+				tau[j][i] = tau[i][j];
+				if (!(Math.abs(tau[i][j] - prior.empTau[i][j]) <= priorTolerance)) {
+					buildEstimator(input);
+					return;
+				}
 			}
+		}
 
-			// fit copulas to the edges
-			for (Edge e : gNext.getUndirectedEdgeList()) {
-				selectCopula(e, lev);
+		rvine = new Graph[prior.rvine.length];
+		empTau = tau;
+		this.data = data;
+		this.weights = weights;
+		this.weightSquares = td.sq;
+
+		long start = buildStarted();
+		boolean finished = false;
+		try {
+			// map the prior Nodes to the new Nodes
+			HashMap<Node, Node> nodes = new HashMap<Node, Node>();
+			Graph g = new Graph();
+			for (Node pn : prior.rvine[0].getNodeList()) {
+				int i = pn.getCondSet().get(0);
+				Node n = new Node(i);
+				n.putData(i, cols[i - 1]);
+				g.addNode(n);
+				nodes.put(pn, n);
 			}
 
-			if (timestamps) {
-				double time = System.currentTimeMillis();
-				System.out.println("finished! ~ " + (time - stamp) + "ms");
-				stamp = time;
+			// the new Edges of a tree in the order of the prior Edges
+			ArrayList<Edge> priorEdges = null;
+			ArrayList<Edge> edges = null;
+
+			for (int lev = 0; lev < rvine.length; lev++) {
+				long tree = treeStarted(lev);
+				long stamp;
+
+				if (lev > 0) {
+					stamp = phaseStarted(lev, Phase.MERGE);
+
+					// merge the edges of the previous tree
+					g = new Graph();
+					for (int k = 0; k < edges.size(); k++) {
+						Node n = mergeNodes(edges.get(k));
+						g.addNode(n);
+						nodes.put(prior.mergedNode(priorEdges.get(k), lev - 1), n);
+					}
+
+					phaseFinished(lev, Phase.MERGE, stamp);
+				}
+				stamp = phaseStarted(lev, Phase.WEIGHTING);
+
+				priorEdges = prior.rvine[lev].getUndirectedEdgeList();
+				edges = new ArrayList<Edge>();
+				for (Edge pe : priorEdges) {
+					Edge e = new Edge(nodes.get(pe.getFrom()),
+							nodes.get(pe.getTo()), 0);
+					kendallWeight(e);
+					g.addEdge(e);
+					edges.add(e);
+				}
+
+				phaseFinished(lev, Phase.WEIGHTING, stamp);
+				stamp = phaseStarted(lev, Phase.FITTING);
+
+				for (int k = 0; k < edges.size(); k++) {
+					Edge e = edges.get(k);
+					Edge pe = priorEdges.get(k);
+
+					// the independence test and the build method come first
+					boolean indep = selectIndependence(e, lev);
+
+					Copula c = null;
+					if (!indep
+							&& Math.abs(e.getTau() - pe.getTau()) <= priorTolerance) {
+						try {
+							c = (Copula) new SerializedObject(pe.getCopula())
+									.getObject();
+						} catch (Exception ex) {
+							c = null;
+						}
+					}
+
+					if (indep) {
+						// the independence copula is set
+					} else if (c == null) {
+						// the edge has drifted, select again
+						selectFamily(e);
+					} else {
+						double[] a, b;
+
+						int val1 = createConditionedSet(e.getFrom(), e.getTo())
+								.get(0);
+						a = e.getFrom().getData(val1);
+						if (a == null) {
+							a = e.getTo().getData(val1);
+						}
+
+						int val2 = createConditionedSet(e.getFrom(), e.getTo())
+								.get(1);
+						b = e.getFrom().getData(val2);
+						if (b == null) {
+							b = e.getTo().getData(val2);
+						}
+
+						double[] par = c.getParams();
+						if (par != null && par.length > 0) {
+							e.setLogLik(mle(c, a, b, weights, par.clone(), 200));
+						} else {
+							e.setLogLik(mle(c, a, b, weights));
+						}
+						e.setCopula(c);
+					}
+					edgeFitted(lev, e);
+				}
+
+				phaseFinished(lev, Phase.FITTING, stamp);
+				treeFinished(lev, tree);
+
+				rvine[lev] = g;
 			}
 
-			rvine[lev] = gNext;
-		}
+			// Use merge only to set last Edge label
+			for (Edge e : edges) {
+				mergeNodes(e);
+			}
 
-		// Use merge only to set last Edge label
-		for (Edge e : rvine[rvine.length - 1].getUndirectedEdgeList()) {
-			mergeNodes(e);
-		}
+			if (td.full != data) {
+				this.data = td.full;
+				this.weights = td.fullWeights;
+				this.weightSquares = td.fullSq;
+				refit(td.full);
+			}
 
-		if (timestamps) {
-			double time = System.currentTimeMillis();
-			System.out.println("finished! ~ " + (time - stamp) + "ms");
-			System.out.print("Building Matrices... ");
-			stamp = time;
-		}
+			long stamp = phaseStarted(-1, Phase.MATRIX);
 
-		createRVineMatrix();
-		built = true;
+			createRVineMatrix();
+			built = true;
+			numObservations = Math.round(effectiveSize());
 
-		if (timestamps) {
-			double time = System.currentTimeMillis();
-			System.out.println("finished! ~ " + (time - stamp) + "ms");
-			System.out.println("Total time: " + (time - start) + "ms");
-			System.out.println();
+			phaseFinished(-1, Phase.MATRIX, stamp);
+			finished = true;
+		} finally {
+			buildFinished(start, finished);
 		}
 	}
 
@@ -290,12 +817,58 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 	 *            Edge level, needed to compute the spread_indep probability.
 	 */
 	protected void selectCopula(Edge e, int lev) {
+		if (selectIndependence(e, lev)) {
+			return;
+		}
+		selectFamily(e);
+	}
+
+	/**
+	 * Selects a copula family for the edge using the selected method,
+	 * without the independence test and the build method.
+	 * 
+	 * @param e
+	 *            The Edge to select a copula for.
+	 */
+	private void selectFamily(Edge e) {
+		if (gof) {
+			gofFitCopula(e, selected);
+			return;
+		}
+		if (trainMethod == TrainMethod.KENDALL) {
+			fitCopula(e, selected);
+		}
+		if (trainMethod == TrainMethod.MIXED) {
+			cvFitCopula(e, selected);
+		}
+		if (trainMethod == TrainMethod.CV) {
+			// Already done in weight step
+			// cvFitCopula(e, selected);
+		}
+	}
+
+	/**
+	 * Sets the independence copula on the edge, if the independence test or
+	 * the build method decide so.
+	 * 
+	 * @param e
+	 *            The Edge to select a copula for.
+	 * @param lev
+	 *            Edge level, needed to compute the spread_indep probability.
+	 * @return returns whether the independence copula was set.
+	 */
+	private boolean selectIndependence(Edge e, int lev) {
+		if (indepTest && isIndependent(e)) {
+			e.setCopula(new IndependenceCopula());
+			e.setLogLik(0);
+			return true;
+		}
 		if (buildMethod == BuildMethod.SCATTERED_INDEP) {
 			double p = ((double) lev) / (rvine.length);
 			if (Math.random() < p) {
 				e.setCopula(new IndependenceCopula());
 				e.setLogLik(0);
-				return;
+				return true;
 			}
 		}
 		if (buildMethod == BuildMethod.THRESHOLD) {
@@ -309,19 +882,31 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 			if (weight < threshold) {
 				e.setCopula(new IndependenceCopula());
 				e.setLogLik(0);
-				return;
+				return true;
 			}
 		}
-		if (trainMethod == TrainMethod.KENDALL) {
-			fitCopula(e, selected);
-		}
-		if (trainMethod == TrainMethod.MIXED) {
-			cvFitCopula(e, selected);
-		}
-		if (trainMethod == TrainMethod.CV) {
-			// Already done in weight step
-			// cvFitCopula(e, selected);
+		return false;
+	}
+
+	/**
+	 * Asymptotic independence test based on Kendall's tau. <br>
+	 * Under independence, the empirical tau is approximately normal with mean
+	 * 0. The test accepts independence if the z-statistic does not exceed
+	 * the 1-alpha/2 quantile of the standard normal distribution. <br>
+	 * Edges without empirical tau (CV weighting) are never independent.
+	 * 
+	 * @param e
+	 *            The Edge to be tested.
+	 * @return returns whether independence is accepted.
+	 */
+	protected boolean isIndependent(Edge e) {
+		double tau = e.getTau();
+		if (Double.isNaN(tau)) {
+			return false;
 		}
+		int n = (int) Math.round(effectiveSize());
+		double z = Math.abs(tau) / VineUtils.kendallsTauStdDev(n);
+		return z <= NormalDist.inverseF01(1 - alpha / 2);
 	}
 
 	/**
@@ -351,14 +936,35 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 		}
 		int n = m.length;
 		double[] u = new double[n];
-		double[][] v = new double[n][n];
-		Copula c;
 
 		// random observations of uniform(0,1) distribution
 		for (int i = 0; i < n; i++) {
 			u[i] = Math.random();
 		}
 
+		sample(x, given, u, new double[n][n]);
+		return new DenseInstance(1.0, x);
+	}
+
+	/**
+	 * Transforms uniform observations into a sample of the RVine. <br>
+	 * This is the sampling algorithm of createSample. The values of x, which
+	 * are not flagged as given, are overwritten.
+	 * 
+	 * @param x
+	 *            an observation array.
+	 * @param given
+	 *            a boolean flag for each value of x if it is given.
+	 * @param u
+	 *            independent uniform(0,1) observations, one per variable.
+	 *            The array is used as work space.
+	 * @param v
+	 *            n x n work space for the transformed values.
+	 */
+	void sample(double[] x, boolean[] given, double[] u, double[][] v) {
+		int n = m.length;
+		Copula c;
+
 		if (!given[m[n - 1][n - 1] - 1]) {
 			x[m[n - 1][n - 1] - 1] = u[m[n - 1][n - 1] - 1];
 		}
@@ -422,8 +1028,434 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 				}
 			}
 		}
+	}
 
-		return new DenseInstance(1.0, x);
+	/**
+	 * Creates random samples in parallel. <br>
+	 * The samples are created in chunks of fixed size. Every chunk gets its
+	 * own SplittableRandom, split from a generator with the given seed, so
+	 * the result only depends on the seed and not on the number of execution
+	 * slots.
+	 * 
+	 * @param count
+	 *            the number of samples.
+	 * @param seed
+	 *            the random seed.
+	 * @return returns the samples as count x n array.
+	 */
+	public double[][] createRandomSamples(int count, long seed) {
+		return createRandomSamples(count, new SplittableRandom(seed));
+	}
+
+	/**
+	 * Creates random samples in parallel from a given generator. <br>
+	 * The chunk generators are split from root. Consecutive calls with
+	 * counts that are multiples of CHUNK_SIZE produce the same samples as one
+	 * call with the total count, so large sample sets can be created batch
+	 * by batch.
+	 * 
+	 * @param count
+	 *            the number of samples.
+	 * @param root
+	 *            the generator to split the chunk generators from.
+	 * @return returns the samples as count x n array.
+	 */
+	public double[][] createRandomSamples(int count, SplittableRandom root) {
+		if (!built) {
+			System.err
+					.println("Use estimate(data, w) first to build the estimator!");
+			return null;
+		}
+		final double[][] out = new double[count][];
+		final int n = m.length;
+
+		// split the generators in chunk order
+		int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int ch = 0; ch < chunks; ch++) {
+			final SplittableRandom r = root.split();
+			final int from = ch * CHUNK_SIZE;
+			final int to = Math.min(count, from + CHUNK_SIZE);
+
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					double[] u = new double[n];
+					double[][] v = new double[n][n];
+					boolean[] given = new boolean[n];
+					for (int j = from; j < to; j++) {
+						for (int i = 0; i < n; i++) {
+							u[i] = r.nextDouble();
+						}
+						out[j] = new double[n];
+						sample(out[j], given, u, v);
+					}
+					return null;
+				}
+			});
+		}
+
+		VineUtils.runTasks(tasks, numExecutionSlots);
+		return out;
+	}
+
+	/**
+	 * Creates samples in parallel with the given sampling mode. <br>
+	 * For SOBOL and HALTON, the uniform observations are the points of a
+	 * randomized low-discrepancy point set with one dimension per variable.
+	 * The dimensions are assigned in the order the variables are sampled,
+	 * i.e. along the diagonal of the RVine-Matrix from bottom right to top
+	 * left, so the first and best distributed dimensions go to the variables
+	 * the others are conditioned on. <br>
+	 * Sobol points are randomized by a left matrix scramble and a digital
+	 * shift, Halton points by a random shift modulo 1. The randomization only
+	 * depends on the seed and every chunk starts at its own point index, so
+	 * the result does not depend on the number of execution slots. Sobol
+	 * nets have a power of two points, so sample counts which are powers of
+	 * two give the best uniformity.
+	 * 
+	 * @param count
+	 *            the number of samples.
+	 * @param seed
+	 *            the random seed.
+	 * @param mode
+	 *            the sampling mode.
+	 * @return returns the samples as count x n array.
+	 */
+	public double[][] createRandomSamples(int count, long seed, Sampling mode) {
+		if (mode == Sampling.RANDOM) {
+			return createRandomSamples(count, seed);
+		}
+		if (!built) {
+			System.err
+					.println("Use estimate(data, w) first to build the estimator!");
+			return null;
+		}
+		final double[][] out = new double[count][];
+		final int n = m.length;
+
+		// dimension d of the point set belongs to the d-th sampled variable
+		final int[] order = new int[n];
+		for (int d = 0; d < n; d++) {
+			order[d] = m[n - 1 - d][n - 1 - d] - 1;
+		}
+
+		SplittableRandom r = new SplittableRandom(seed);
+		MRG32k3a stream = new MRG32k3a();
+		long[] streamSeed = new long[6];
+		for (int i = 0; i < streamSeed.length; i++) {
+			// valid for both components of MRG32k3a
+			streamSeed[i] = 1 + r.nextLong(4294944442L);
+		}
+		stream.setSeed(streamSeed);
+
+		final PointSet points;
+		final double[] shift = new double[n];
+		if (mode == Sampling.SOBOL) {
+			if (n > 360) {
+				System.err.println("Sobol sampling supports at most "
+						+ "360 variables!");
+				return null;
+			}
+			int k = 1;
+			while (k < 30 && (1 << k) < count) {
+				k++;
+			}
+			if ((1 << k) < count) {
+				System.err.println("Sobol sampling supports at most "
+						+ (1 << k) + " samples!");
+				return null;
+			}
+			points = new SobolSequence(k, 31, n);
+			new LMScrambleShift(stream).randomize(points);
+		} else {
+			points = new HaltonSequence(n);
+			for (int d = 0; d < n; d++) {
+				shift[d] = stream.nextDouble();
+			}
+		}
+
+		int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int ch = 0; ch < chunks; ch++) {
+			final int from = ch * CHUNK_SIZE;
+			final int to = Math.min(count, from + CHUNK_SIZE);
+
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					PointSetIterator it = points.iterator();
+					it.setCurPointIndex(from);
+					double[] p = new double[n];
+					double[] u = new double[n];
+					double[][] v = new double[n][n];
+					boolean[] given = new boolean[n];
+					for (int j = from; j < to; j++) {
+						it.nextPoint(p, n);
+						for (int d = 0; d < n; d++) {
+							double x = p[d] + shift[d];
+							u[order[d]] = x < 1 ? x : x - 1;
+						}
+						out[j] = new double[n];
+						sample(out[j], given, u, v);
+					}
+					return null;
+				}
+			});
+		}
+
+		VineUtils.runTasks(tasks, numExecutionSlots);
+		return out;
+	}
+
+	/**
+	 * Creates random samples in parallel as Instances. <br>
+	 * See createRandomSamples(count, seed).
+	 * 
+	 * @param count
+	 *            the number of samples.
+	 * @param seed
+	 *            the random seed.
+	 * @return returns the samples with the attributes of the training data.
+	 */
+	public Instances createRandomInstances(int count, long seed) {
+		return createRandomInstances(count, seed, Sampling.RANDOM);
+	}
+
+	/**
+	 * Creates samples in parallel as Instances. <br>
+	 * See createRandomSamples(count, seed, mode).
+	 * 
+	 * @param count
+	 *            the number of samples.
+	 * @param seed
+	 *            the random seed.
+	 * @param mode
+	 *            the sampling mode.
+	 * @return returns the samples with the attributes of the training data.
+	 */
+	public Instances createRandomInstances(int count, long seed,
+			Sampling mode) {
+		double[][] x = createRandomSamples(count, seed, mode);
+		if (x == null) {
+			return null;
+		}
+
+		Instances out = new Instances(data, count);
+		for (double[] row : x) {
+			out.add(new DenseInstance(1.0, row));
+		}
+		return out;
+	}
+
+	/**
+	 * Creates conditional samples for a batch of observations. <br>
+	 * It is the batch version of createSample(x, given). The rows are grouped
+	 * by their given flags and the traversal of the RVine-Matrix is prepared
+	 * once per group, without the transformed values that are not needed by
+	 * the group's pattern. The h- and inverse h-functions are then evaluated
+	 * column-wise over all rows and draws of a group. <br>
+	 * The draws are processed in chunks of CHUNK_SIZE, every chunk with its
+	 * own SplittableRandom split from a generator with the given seed, so the
+	 * result does not depend on the number of execution slots.
+	 * 
+	 * @param x
+	 *            the observation rows.
+	 * @param given
+	 *            for each row a boolean flag for each value if it shall be
+	 *            used as given value.
+	 * @param draws
+	 *            the number of samples per row.
+	 * @param seed
+	 *            the random seed.
+	 * @return returns the samples as rows x draws x n array.
+	 */
+	public double[][][] createSamples(final double[][] x, boolean[][] given,
+			final int draws, long seed) {
+		if (!built) {
+			System.err
+					.println("Use estimate(data, w) first to build the estimator!");
+			return null;
+		}
+		final double[][][] out = new double[x.length][draws][];
+		final int n = m.length;
+
+		// group the rows by their pattern in order of first occurrence
+		LinkedHashMap<String, ArrayList<Integer>> groups =
+				new LinkedHashMap<String, ArrayList<Integer>>();
+		for (int j = 0; j < x.length; j++) {
+			String key = Arrays.toString(given[j]);
+			ArrayList<Integer> rows = groups.get(key);
+			if (rows == null) {
+				rows = new ArrayList<Integer>();
+				groups.put(key, rows);
+			}
+			rows.add(j);
+		}
+
+		SplittableRandom root = new SplittableRandom(seed);
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (ArrayList<Integer> rows : groups.values()) {
+			final SamplingPlan plan = samplingPlan(given[rows.get(0)]);
+			final int[] idx = new int[rows.size()];
+			for (int j = 0; j < idx.length; j++) {
+				idx[j] = rows.get(j);
+			}
+
+			long total = (long) idx.length * draws;
+			for (long from = 0; from < total; from += CHUNK_SIZE) {
+				final SplittableRandom r = root.split();
+				// the offset exceeds the int range for many rows and draws
+				final long start = from;
+				final int len = (int) Math.min(CHUNK_SIZE, total - from);
+
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						double[][] buf = plan.allocate(len);
+						for (int e = 0; e < len; e++) {
+							long k = start + e;
+							double[] row = x[idx[(int) (k / draws)]];
+							for (int i = 0; i < n; i++) {
+								if (plan.given[i]) {
+									buf[i][e] = row[i];
+								} else if (plan.random[i]) {
+									buf[n + i][e] = r.nextDouble();
+								}
+							}
+						}
+
+						plan.run(buf, len);
+
+						for (int e = 0; e < len; e++) {
+							double[] y = new double[n];
+							for (int i = 0; i < n; i++) {
+								y[i] = buf[i][e];
+							}
+							long k = start + e;
+							out[idx[(int) (k / draws)]][(int) (k % draws)] = y;
+						}
+						return null;
+					}
+				});
+			}
+		}
+
+		VineUtils.runTasks(tasks, numExecutionSlots);
+		return out;
+	}
+
+	/**
+	 * Imputes the missing values of a data set. <br>
+	 * The missing values are sampled conditionally on the values that are not
+	 * missing, see createSamples(x, given, draws, seed).
+	 * 
+	 * @param data
+	 *            the data with missing values, which have the attributes of
+	 *            the training data.
+	 * @param draws
+	 *            the number of imputations per instance.
+	 * @param seed
+	 *            the random seed.
+	 * @return returns the imputed instances, the draws for an instance are
+	 *         consecutive and have the instance's weight.
+	 */
+	public Instances impute(Instances data, int draws, long seed) {
+		int n = data.numAttributes();
+		double[][] x = new double[data.size()][];
+		boolean[][] given = new boolean[data.size()][n];
+		for (int j = 0; j < x.length; j++) {
+			x[j] = data.get(j).toDoubleArray();
+			for (int i = 0; i < n; i++) {
+				given[j][i] = !Double.isNaN(x[j][i]);
+			}
+		}
+
+		double[][][] y = createSamples(x, given, draws, seed);
+		if (y == null) {
+			return null;
+		}
+
+		Instances out = new Instances(data, x.length * draws);
+		for (int j = 0; j < y.length; j++) {
+			for (double[] row : y[j]) {
+				out.add(new DenseInstance(data.get(j).weight(), row));
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Prepares the traversal of the sampling algorithm for a pattern of
+	 * given values. <br>
+	 * The steps are the ones of sample(x, given, u, v). Steps which compute
+	 * transformed values that are not used by any later step are removed.
+	 * 
+	 * @param given
+	 *            a boolean flag for each variable if it is given.
+	 * @return returns the sampling plan.
+	 */
+	private SamplingPlan samplingPlan(boolean[] given) {
+		int n = m.length;
+		SamplingPlan p = new SamplingPlan(n, given);
+		int a = m[n - 1][n - 1] - 1;
+		Copula c;
+
+		if (!given[a]) {
+			p.add(SamplingPlan.COPY, null, p.u(a), -1, p.x(a));
+		}
+
+		for (int k = n - 2; k >= 0; k--) {
+			int mk = m[k][k] - 1;
+			int mn = m[n - 1][k] - 1;
+
+			if (!given[mk]) {
+				for (int i = k + 1; i < n - 1; i++) {
+					c = edges[i][k].getCopula();
+					int vi = p.v(m[i][k] - 1, m[i + 1][k] - 1);
+					if (m[k][k] > m[i][k]) {
+						p.add(SamplingPlan.H1INV, c, vi, p.u(mk), p.u(mk));
+					} else {
+						p.add(SamplingPlan.H2INV, c, p.u(mk), vi, p.u(mk));
+					}
+				}
+				c = edges[n - 1][k].getCopula();
+				if (m[k][k] > m[n - 1][k]) {
+					p.add(SamplingPlan.H1INV, c, p.x(mn), p.u(mk), p.x(mk));
+				} else {
+					p.add(SamplingPlan.H2INV, c, p.u(mk), p.x(mn), p.x(mk));
+				}
+			}
+
+			c = edges[n - 1][k].getCopula();
+			if (m[k][k] > m[n - 1][k]) {
+				p.add(SamplingPlan.H1, c, p.x(mn), p.x(mk), p.v(mk, mn));
+				p.add(SamplingPlan.H2, c, p.x(mn), p.x(mk), p.v(mn, mk));
+			} else {
+				p.add(SamplingPlan.H2, c, p.x(mk), p.x(mn), p.v(mk, mn));
+				p.add(SamplingPlan.H1, c, p.x(mk), p.x(mn), p.v(mn, mk));
+			}
+
+			for (int i = n - 2; i > k; i--) {
+				c = edges[i][k].getCopula();
+				int mi = m[i][k] - 1;
+				int mi1 = m[i + 1][k] - 1;
+				if (m[k][k] > m[i][k]) {
+					p.add(SamplingPlan.H1, c, p.v(mi, mi1), p.v(mk, mi1),
+							p.v(mk, mi));
+					p.add(SamplingPlan.H2, c, p.v(mi, mi1), p.v(mk, mi1),
+							p.v(mi, mk));
+				} else {
+					p.add(SamplingPlan.H2, c, p.v(mk, mi1), p.v(mi, mi1),
+							p.v(mk, mi));
+					p.add(SamplingPlan.H1, c, p.v(mk, mi1), p.v(mi, mi1),
+							p.v(mi, mk));
+				}
+			}
+		}
+
+		p.prune();
+		return p;
 	}
 
 	/**
@@ -623,7 +1655,46 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 		}
 
 		// set the edge weight
-		e.setWeight(Math.abs(VineUtils.kendallsTau(a, b)));
+		double tau = fitCache != null ? fitCache.kendallsTau(a, b, weights)
+				: VineUtils.kendallsTau(a, b, weights);
+		e.setTau(tau);
+		e.setWeight(Math.abs(tau));
+	}
+
+	/**
+	 * Removes the copulas, which cannot attain the empirical Kendall's tau of
+	 * the edge. <br>
+	 * E.g. the 90 and 270 degree rotations only model negative dependence.
+	 * A copula is kept, if the empirical tau lies in its attainable tau range
+	 * up to one standard deviation of the tau estimate.
+	 * 
+	 * @param copSet
+	 *            the candidate copulas.
+	 * @param e
+	 *            the Edge to be fitted to.
+	 * @param n
+	 *            number of observations.
+	 * @return the remaining candidates, or all if none remains.
+	 */
+	Copula[] pruneCopulas(Copula[] copSet, Edge e, int n) {
+		double tau = e.getTau();
+		if (Double.isNaN(tau)) {
+			return copSet;
+		}
+		double slack = VineUtils.kendallsTauStdDev(n);
+
+		ArrayList<Copula> out = new ArrayList<Copula>();
+		for (Copula c : copSet) {
+			double[] range = c.tauRange();
+			if (tau >= range[0] - slack && tau <= range[1] + slack) {
+				out.add(c);
+			}
+		}
+
+		if (out.isEmpty()) {
+			return copSet;
+		}
+		return out.toArray(new Copula[out.size()]);
 	}
 
 	/**
@@ -635,8 +1706,6 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 	 *            Copula selection array.
 	 */
 	private void fitCopula(Edge e, boolean[] selected) {
-		Copula[] copSet = ch.select(selected);
-		double[] lls = new double[copSet.length];
 		double[] a, b;
 
 		// get the corresponding data from a merged Node
@@ -653,9 +1722,12 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 			b = e.getTo().getData(val2);
 		}
 
+		int n = (int) Math.round(effectiveSize());
+		Copula[] copSet = pruneCopulas(ch.select(selected), e, n);
+		double[] lls = new double[copSet.length];
+
 		for (int i = 0; i < copSet.length; i++) {
-			Copula c = copSet[i];
-			lls[i] = c.mle(a, b);
+			lls[i] = mle(copSet[i], a, b, weights);
 		}
 
 		int out = 0;
@@ -664,8 +1736,110 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 				out = i;
 		}
 
-		e.setCopula(copSet[out]);
-		e.setLogLik(lls[out]);
+		e.setCopula(copSet[out]);
+		e.setLogLik(lls[out]);
+	}
+
+	/**
+	 * MLE of a copula, which takes the result from the fit cache if set.
+	 * 
+	 * @param c
+	 *            the copula to be fitted.
+	 * @param a
+	 *            data of variable.
+	 * @param b
+	 *            data of another variable.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @return returns the maximum likelihood.
+	 */
+	private double mle(Copula c, double[] a, double[] b, double[] w) {
+		if (fitCache != null) {
+			return fitCache.mle(c, a, b, w);
+		}
+		return c.mle(a, b, w);
+	}
+
+	/**
+	 * MLE of a copula with a given start, which takes the result from the fit
+	 * cache if set.
+	 * 
+	 * @param c
+	 *            the copula to be fitted.
+	 * @param a
+	 *            data of variable.
+	 * @param b
+	 *            data of another variable.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @param start
+	 *            the start parameters.
+	 * @param maxIter
+	 *            the maximal number of iterations.
+	 * @return returns the maximum likelihood.
+	 */
+	private double mle(Copula c, double[] a, double[] b, double[] w,
+			double[] start, int maxIter) {
+		if (fitCache != null) {
+			return fitCache.mle(c, a, b, w, start, maxIter);
+		}
+		return c.mle(a, b, w, start, maxIter);
+	}
+
+	/**
+	 * Fits Copula to the Edge e using the GOF-Test. <br>
+	 * The candidates are compared by their bootstrap p values with at most
+	 * gofReplicates replicates for the edge, see
+	 * VineUtils.sequentialGoodnessOfFit. Every edge draws its replicates
+	 * from its own seed, see edgeSeed(e).
+	 * 
+	 * @param e
+	 *            Edge to be fitted to.
+	 * @param selected
+	 *            Copula selection array.
+	 */
+	private void gofFitCopula(Edge e, boolean[] selected) {
+		double[] a, b;
+
+		// get the corresponding data from a merged Node
+		int val1 = createConditionedSet(e.getFrom(), e.getTo()).get(0);
+		a = e.getFrom().getData(val1);
+		if (a == null) {
+			a = e.getTo().getData(val1);
+		}
+
+		// get the corresponding data from the other merged Node
+		int val2 = createConditionedSet(e.getFrom(), e.getTo()).get(1);
+		b = e.getFrom().getData(val2);
+		if (b == null) {
+			b = e.getTo().getData(val2);
+		}
+
+		int n = (int) Math.round(effectiveSize());
+		Copula[] copSet = pruneCopulas(ch.select(selected), e, n);
+
+		Copula c = VineUtils.sequentialGoodnessOfFit(copSet, a, b, weights,
+				gofReplicates, edgeSeed(e), numExecutionSlots, fitCache);
+
+		e.setCopula(c);
+		e.setLogLik(c.logLikelihood(a, b, weights));
+	}
+
+	/**
+	 * Get the random seed of an Edge. <br>
+	 * It is derived from the seed option and the variables of the Edge, so
+	 * it does not depend on the order in which the Edges are fitted.
+	 * 
+	 * @param e
+	 *            an Edge.
+	 * @return returns the seed of the Edge.
+	 */
+	private long edgeSeed(Edge e) {
+		TreeSet<Integer> vars = e.getFrom().set();
+		vars.addAll(e.getTo().set());
+		String key = createConditionedSet(e.getFrom(), e.getTo()) + " | "
+				+ vars;
+		return new SplittableRandom(seed).nextLong() * 31 + key.hashCode();
 	}
 
 	/**
@@ -677,16 +1851,8 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 	 *            Copula selection array.
 	 */
 	private void cvFitCopula(Edge e, boolean[] selected) {
-		Copula[] copSet = ch.select(selected);
-		Copula[] bestCops = ch.select(selected);
-		double[] lls = new double[copSet.length];
 		double[] a, b;
 
-		// initialize lls
-		for (int i = 0; i < lls.length; i++) {
-			lls[i] = Double.NEGATIVE_INFINITY;
-		}
-
 		// get the corresponding data from a merged Node
 		int val1 = createConditionedSet(e.getFrom(), e.getTo()).get(0);
 		a = e.getFrom().getData(val1);
@@ -701,6 +1867,16 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 			b = e.getTo().getData(val2);
 		}
 
+		int n = (int) Math.round(effectiveSize());
+		Copula[] copSet = pruneCopulas(ch.select(selected), e, n);
+		Copula[] bestCops = pruneCopulas(ch.select(selected), e, n);
+		double[] lls = new double[copSet.length];
+
+		// initialize lls
+		for (int i = 0; i < lls.length; i++) {
+			lls[i] = Double.NEGATIVE_INFINITY;
+		}
+
 		// cvFold - Cross Validation
 		int foldSize = (int) Math.floor(((double) a.length) / cvFolds);
 		int[] foldSizes = new int[cvFolds];
@@ -723,6 +1899,13 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 			double[] testA = new double[testSize];
 			double[] testB = new double[testSize];
 
+			double[] newW = null;
+			double[] testW = null;
+			if (weights != null) {
+				newW = new double[a.length - testSize];
+				testW = new double[testSize];
+			}
+
 			int k2 = 0;
 			int ub = foldSizes[k2];
 			int lb = 0;
@@ -737,14 +1920,23 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 				if (k2 == i) {
 					testA[en - lb] = a[en];
 					testB[en - lb] = b[en];
+					if (weights != null) {
+						testW[en - lb] = weights[en];
+					}
 				}
 				if (k2 < i) {
 					newA[en] = a[en];
 					newB[en] = b[en];
+					if (weights != null) {
+						newW[en] = weights[en];
+					}
 				}
 				if (k2 > i) {
 					newA[en - testSize] = a[en];
 					newB[en - testSize] = b[en];
+					if (weights != null) {
+						newW[en - testSize] = weights[en];
+					}
 				}
 			}
 
@@ -752,12 +1944,9 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 
 			for (int k = 0; k < copSet.length; k++) {
 				Copula c = copSet[k];
-				c.mle(newA, newB);
+				mle(c, newA, newB, newW);
 
-				double ll = 0;
-				for (int t = 0; t < testSize; t++) {
-					ll += Math.log(c.density(testA[t], testB[t]));
-				}
+				double ll = c.logLikelihood(testA, testB, testW);
 
 				if (ll > lls[k]) {
 					bestCops[k].setParams(c.getParams());
@@ -790,6 +1979,20 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 	private Node mergeNodes(Edge e) {
 		// get the Node label
 		Node out = createConstraintSet(e);
+		propagateData(e, out);
+		return out;
+	}
+
+	/**
+	 * Creates the pseudo observations of a merged Node from the data of the
+	 * Edge's Nodes.
+	 * 
+	 * @param e
+	 *            the Edge from which the Node is merged.
+	 * @param out
+	 *            the merged Node.
+	 */
+	private void propagateData(Edge e, Node out) {
 		double[] a, b;
 
 		// get the corresponding data from a merged Node
@@ -813,8 +2016,458 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 		out.putData(val1, a_new);
 		out.putData(val2, b_new);
 		out.setMergedFrom(e);
+	}
 
-		return out;
+	/**
+	 * Draws a random subsample without replacement.
+	 * 
+	 * @param n
+	 *            the data set size.
+	 * @return the indices of a subsample with the configured size.
+	 */
+	private int[] subsample(int n) {
+		Random r = new Random(seed);
+		int[] idx = new int[n];
+		for (int i = 0; i < n; i++) {
+			idx[i] = i;
+		}
+
+		// partial Fisher-Yates shuffle
+		for (int i = 0; i < subsample; i++) {
+			int j = i + r.nextInt(n - i);
+			int tmp = idx[i];
+			idx[i] = idx[j];
+			idx[j] = tmp;
+		}
+		return Arrays.copyOf(idx, subsample);
+	}
+
+	/**
+	 * The training data of a build. <br>
+	 * data is used to select the structure, full is used to fit the
+	 * copulae. They are the same, unless a subsample is drawn. sq holds the
+	 * summed squared weights of collapsed rows, or null.
+	 */
+	private static class TrainingData {
+		Instances data, full;
+		double[] weights, fullWeights, sq, fullSq;
+	}
+
+	/**
+	 * A row of a column store, compared by its values. <br>
+	 * It is used to find duplicate rows.
+	 */
+	private static class Row {
+		private final double[][] cols;
+		private final int index;
+		private final int hash;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param cols
+		 *            the columns.
+		 * @param index
+		 *            the row index.
+		 */
+		Row(double[][] cols, int index) {
+			this.cols = cols;
+			this.index = index;
+			int h = 1;
+			for (double[] c : cols) {
+				long bits = Double.doubleToLongBits(c[index]);
+				h = 31 * h + (int) (bits ^ (bits >>> 32));
+			}
+			hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Row)) {
+				return false;
+			}
+			Row r = (Row) o;
+			for (double[] c : cols) {
+				if (Double.doubleToLongBits(c[index]) != Double
+						.doubleToLongBits(c[r.index])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The traversal of the sampling algorithm for a pattern of given values.
+	 * <br>
+	 * Every step computes one column of values from one or two other columns,
+	 * so it can be evaluated for many draws at once. The columns are indexed
+	 * as slots: the observations x, the uniform observations u and the
+	 * transformed values v of sample(x, given, u, v).
+	 */
+	private static class SamplingPlan {
+		static final int COPY = 0, H1INV = 1, H2INV = 2, H1 = 3, H2 = 4;
+		private final int n;
+		private final boolean[] given;
+		private final boolean[] random;
+		private final ArrayList<int[]> steps = new ArrayList<int[]>();
+		private final ArrayList<Copula> copulas = new ArrayList<Copula>();
+
+		/**
+		 * Constructor
+		 * 
+		 * @param n
+		 *            the number of variables.
+		 * @param given
+		 *            a boolean flag for each variable if it is given.
+		 */
+		SamplingPlan(int n, boolean[] given) {
+			this.n = n;
+			this.given = given.clone();
+			this.random = new boolean[n];
+		}
+
+		int x(int i) {
+			return i;
+		}
+
+		int u(int i) {
+			return n + i;
+		}
+
+		int v(int i, int j) {
+			return 2 * n + i * n + j;
+		}
+
+		/**
+		 * Appends a step, out = op(in1, in2).
+		 */
+		void add(int op, Copula c, int in1, int in2, int out) {
+			steps.add(new int[] { op, in1, in2, out });
+			copulas.add(c);
+		}
+
+		/**
+		 * Removes the steps whose results are not used and marks the uniform
+		 * observations that have to be drawn.
+		 */
+		void prune() {
+			boolean[] live = new boolean[2 * n + n * n];
+			Arrays.fill(live, 0, n, true);
+
+			for (int s = steps.size() - 1; s >= 0; s--) {
+				int[] st = steps.get(s);
+				if (!live[st[3]]) {
+					steps.remove(s);
+					copulas.remove(s);
+					continue;
+				}
+				if (st[3] >= n) {
+					live[st[3]] = false;
+				}
+				live[st[1]] = true;
+				if (st[2] >= 0) {
+					live[st[2]] = true;
+				}
+			}
+
+			for (int i = 0; i < n; i++) {
+				random[i] = !given[i] && live[u(i)];
+			}
+		}
+
+		/**
+		 * Allocates the columns used by the plan.
+		 * 
+		 * @param len
+		 *            the number of draws.
+		 * @return returns the columns, unused slots are null.
+		 */
+		double[][] allocate(int len) {
+			double[][] buf = new double[2 * n + n * n][];
+			for (int i = 0; i < n; i++) {
+				buf[i] = new double[len];
+				if (random[i]) {
+					buf[u(i)] = new double[len];
+				}
+			}
+			for (int[] st : steps) {
+				if (buf[st[3]] == null) {
+					buf[st[3]] = new double[len];
+				}
+			}
+			return buf;
+		}
+
+		/**
+		 * Runs the steps column-wise.
+		 * 
+		 * @param buf
+		 *            the columns.
+		 * @param len
+		 *            the number of draws.
+		 */
+		void run(double[][] buf, int len) {
+			for (int s = 0; s < steps.size(); s++) {
+				int[] st = steps.get(s);
+				Copula c = copulas.get(s);
+				double[] a = buf[st[1]];
+				double[] b = st[2] >= 0 ? buf[st[2]] : null;
+				double[] o = buf[st[3]];
+
+				switch (st[0]) {
+				case COPY:
+					System.arraycopy(a, 0, o, 0, len);
+					break;
+				case H1INV:
+					for (int e = 0; e < len; e++) {
+						o[e] = c.h1inverse(a[e], b[e]);
+					}
+					break;
+				case H2INV:
+					for (int e = 0; e < len; e++) {
+						o[e] = c.h2inverse(a[e], b[e]);
+					}
+					break;
+				case H1:
+					for (int e = 0; e < len; e++) {
+						o[e] = c.h1Function(a[e], b[e]);
+					}
+					break;
+				case H2:
+					for (int e = 0; e < len; e++) {
+						o[e] = c.h2Function(a[e], b[e]);
+					}
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the effective number of observations. <br>
+	 * See effectiveSize(w, sq, n).
+	 * 
+	 * @return the effective number of observations.
+	 */
+	private double effectiveSize() {
+		return effectiveSize(weights, weightSquares, data.numInstances());
+	}
+
+	/**
+	 * Get Kish's effective sample size of weighted observations. <br>
+	 * See VineUtils.effectiveSize(w, sq, n).
+	 * 
+	 * @param w
+	 *            the weights, null for unit weights.
+	 * @param sq
+	 *            the summed squared weights per row, null for w^2.
+	 * @param n
+	 *            the number of rows.
+	 * @return the effective number of observations.
+	 */
+	static double effectiveSize(double[] w, double[] sq, int n) {
+		return VineUtils.effectiveSize(w, sq, n);
+	}
+
+	/**
+	 * Refits the selected Copulae of the built RVine on a data set. <br>
+	 * The structure and the copula families are kept, only the parameters
+	 * are estimated again. The pseudo observations are propagated tree by
+	 * tree. The listeners are notified about the REFIT phase.
+	 * 
+	 * @param data
+	 *            the data set.
+	 */
+	private void refit(Instances data) {
+		long stamp = phaseStarted(-1, Phase.REFIT);
+
+		for (Node n : rvine[0].getNodeList()) {
+			int i = n.getCondSet().get(0);
+			n.putData(i, data.attributeToDoubleArray(i - 1));
+		}
+
+		for (int lev = 0; lev < rvine.length; lev++) {
+			for (Edge e : rvine[lev].getUndirectedEdgeList()) {
+				double[] a, b;
+
+				int val1 = createConditionedSet(e.getFrom(), e.getTo()).get(0);
+				a = e.getFrom().getData(val1);
+				if (a == null) {
+					a = e.getTo().getData(val1);
+				}
+
+				int val2 = createConditionedSet(e.getFrom(), e.getTo()).get(1);
+				b = e.getFrom().getData(val2);
+				if (b == null) {
+					b = e.getTo().getData(val2);
+				}
+
+				e.setLogLik(mle(e.getCopula(), a, b, weights));
+
+				if (lev + 1 < rvine.length) {
+					propagateData(e, mergedNode(e, lev));
+				}
+			}
+		}
+
+		phaseFinished(-1, Phase.REFIT, stamp);
+	}
+
+	/**
+	 * Get the Node of the next tree, which was merged from an Edge.
+	 * 
+	 * @param e
+	 *            an Edge of the RVine.
+	 * @param lev
+	 *            tree level of the Edge.
+	 * @return the merged Node or null, if e is an Edge of the last tree.
+	 */
+	private Node mergedNode(Edge e, int lev) {
+		if (lev + 1 >= rvine.length) {
+			return null;
+		}
+		for (Node n : rvine[lev + 1].getNodeList()) {
+			if (n.getMergedFrom().contains(e.getFrom())
+					&& n.getMergedFrom().contains(e.getTo())) {
+				return n;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Updates the copula parameters with a batch of new observations. <br>
+	 * The RVine structure and the copula families are kept. The batch is
+	 * transformed to pseudo observations tree by tree with the h-functions,
+	 * and each copula is moved towards the batch estimate, which is computed
+	 * by a few MLE iterations starting at the current parameters. <br>
+	 * The step size is the update rate or, if it is 0, the batch's share of
+	 * all seen observations. Instance weights are used in the MLE, the
+	 * observations are counted by the effective sample size. To select a new structure, use buildEstimator.
+	 * <br>
+	 * The listeners are notified like in a build, with the MERGE and FITTING
+	 * phases of every tree. The log-likelihood of an updated edge is the
+	 * log-likelihood of its blended copula on the batch. The MLE takes its
+	 * results from the fit cache, if set.
+	 * 
+	 * @param batch
+	 *            a batch of new observations.
+	 */
+	public void update(Instances batch) {
+		if (!built) {
+			System.err
+					.println("Use estimate(data, w) first to build the estimator!");
+			return;
+		}
+		if (batch.numInstances() == 0) {
+			return;
+		}
+
+		double[] bw = instanceWeights(batch);
+		double size = effectiveSize(bw, null, batch.numInstances());
+
+		double w = updateRate;
+		if (w <= 0) {
+			w = size / (numObservations + size);
+		}
+
+		// pseudo observations of the batch for each Node
+		HashMap<Node, HashMap<Integer, double[]>> obs =
+				new HashMap<Node, HashMap<Integer, double[]>>();
+		for (Node n : rvine[0].getNodeList()) {
+			int i = n.getCondSet().get(0);
+			HashMap<Integer, double[]> d = new HashMap<Integer, double[]>();
+			d.put(i, batch.attributeToDoubleArray(i - 1));
+			obs.put(n, d);
+		}
+
+		long start = buildStarted();
+		boolean finished = false;
+		try {
+			for (int lev = 0; lev < rvine.length; lev++) {
+				long tree = treeStarted(lev);
+				long stamp;
+
+				if (lev > 0) {
+					stamp = phaseStarted(lev, Phase.MERGE);
+
+					// transform the batch with the updated copulae
+					for (Edge e : rvine[lev - 1].getUndirectedEdgeList()) {
+						double[][] ab = batchData(obs, e);
+						Copula c = e.getCopula();
+						HashMap<Integer, double[]> d = new HashMap<Integer, double[]>();
+						d.put(createConditionedSet(e.getFrom(), e.getTo()).get(0),
+								transformData2(c, ab[0], ab[1]));
+						d.put(createConditionedSet(e.getFrom(), e.getTo()).get(1),
+								transformData1(c, ab[0], ab[1]));
+						obs.put(mergedNode(e, lev - 1), d);
+					}
+
+					phaseFinished(lev, Phase.MERGE, stamp);
+				}
+				stamp = phaseStarted(lev, Phase.FITTING);
+
+				for (Edge e : rvine[lev].getUndirectedEdgeList()) {
+					double[][] ab = batchData(obs, e);
+
+					Copula c = e.getCopula();
+					double[] old = c.getParams();
+					if (old != null && old.length > 0) {
+						old = old.clone();
+						mle(c, ab[0], ab[1], bw, old, updateIterations);
+
+						double[] par = c.getParams().clone();
+						for (int i = 0; i < par.length; i++) {
+							par[i] = (1 - w) * old[i] + w * par[i];
+						}
+						c.setParams(par);
+					}
+
+					// the log-likelihood of the blended copula on the batch
+					e.setLogLik(c.logLikelihood(ab[0], ab[1], bw));
+					edgeFitted(lev, e);
+				}
+
+				phaseFinished(lev, Phase.FITTING, stamp);
+				treeFinished(lev, tree);
+			}
+
+			numObservations += Math.round(size);
+			finished = true;
+		} finally {
+			buildFinished(start, finished);
+		}
+	}
+
+	/**
+	 * Get the pseudo observations of a batch for the copula of an Edge.
+	 * 
+	 * @param obs
+	 *            the pseudo observations of the batch for each Node.
+	 * @param e
+	 *            an Edge of the RVine.
+	 * @return the two observation arrays of the Edge.
+	 */
+	private double[][] batchData(HashMap<Node, HashMap<Integer, double[]>> obs,
+			Edge e) {
+		int val1 = createConditionedSet(e.getFrom(), e.getTo()).get(0);
+		int val2 = createConditionedSet(e.getFrom(), e.getTo()).get(1);
+
+		double[] a = obs.get(e.getFrom()).get(val1);
+		if (a == null) {
+			a = obs.get(e.getTo()).get(val1);
+		}
+		double[] b = obs.get(e.getFrom()).get(val2);
+		if (b == null) {
+			b = obs.get(e.getTo()).get(val2);
+		}
+		return new double[][] { a, b };
 	}
 
 	/**
@@ -1735,6 +3388,231 @@ public class RegularVine implements DensityEstimator, CommandlineRunnable,
 		return timestamps;
 	}
 
+	@OptionMetadata(
+			displayName = "Independence test",
+			description = "Use the independence copula for edges that pass "
+					+ "Kendall's tau independence test.",
+			commandLineParamName = "indep",
+			commandLineParamSynopsis = "-indep",
+			commandLineParamIsFlag = true,
+			displayOrder = 17)
+	public void setIndepTest(boolean indepTest) {
+		this.indepTest = indepTest;
+	}
+
+	public boolean getIndepTest() {
+		return indepTest;
+	}
+
+	@OptionMetadata(
+			displayName = "Independence test level",
+			description = "Significance level alpha for the independence test.",
+			commandLineParamName = "alpha",
+			commandLineParamSynopsis = "-alpha",
+			commandLineParamIsFlag = false,
+			displayOrder = 18)
+	public void setAlpha(double alpha) {
+		if (alpha > 0 && alpha < 1)
+			this.alpha = alpha;
+	}
+
+	public double getAlpha() {
+		return alpha;
+	}
+
+	@OptionMetadata(
+			displayName = "Subsample size",
+			description = "Select the structure and copula families on a "
+					+ "random subsample of this size and refit the "
+					+ "parameters on all data (0 = off).",
+			commandLineParamName = "subsample",
+			commandLineParamSynopsis = "-subsample",
+			commandLineParamIsFlag = false,
+			displayOrder = 19)
+	public void setSubsample(int subsample) {
+		if (subsample >= 0)
+			this.subsample = subsample;
+	}
+
+	public int getSubsample() {
+		return subsample;
+	}
+
+	@OptionMetadata(
+			displayName = "Random seed",
+			description = "Random seed for the subsample and the GOF "
+					+ "bootstrap.",
+			commandLineParamName = "S",
+			commandLineParamSynopsis = "-S",
+			commandLineParamIsFlag = false,
+			displayOrder = 20)
+	public void setSeed(int seed) {
+		this.seed = seed;
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+
+	@OptionMetadata(
+			displayName = "Compress duplicates",
+			description = "Collapse identical rows into one weighted row "
+					+ "before building.",
+			commandLineParamName = "compress",
+			commandLineParamSynopsis = "-compress",
+			commandLineParamIsFlag = true,
+			displayOrder = 21)
+	public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+
+	public boolean getCompress() {
+		return compress;
+	}
+
+	@OptionMetadata(
+			displayName = "Number of execution slots",
+			description = "The number of threads for bulk sampling "
+					+ "(default 1).",
+			commandLineParamName = "num-slots",
+			commandLineParamSynopsis = "-num-slots <num>",
+			commandLineParamIsFlag = false,
+			displayOrder = 22)
+	public void setNumExecutionSlots(int numSlots) {
+		if (numSlots > 0)
+			this.numExecutionSlots = numSlots;
+	}
+
+	public int getNumExecutionSlots() {
+		return numExecutionSlots;
+	}
+
+	@OptionMetadata(
+			displayName = "GOF selection",
+			description = "Select the copula families by a bootstrap "
+					+ "goodness of fit test instead of the likelihood.",
+			commandLineParamName = "gof",
+			commandLineParamSynopsis = "-gof",
+			commandLineParamIsFlag = true,
+			displayOrder = 23)
+	public void setGof(boolean gof) {
+		this.gof = gof;
+	}
+
+	public boolean getGof() {
+		return gof;
+	}
+
+	@OptionMetadata(
+			displayName = "GOF replicates per edge",
+			description = "The maximal number of bootstrap replicates of the "
+					+ "GOF selection for all families of an edge "
+					+ "(default 200).",
+			commandLineParamName = "gof-reps",
+			commandLineParamSynopsis = "-gof-reps <num>",
+			commandLineParamIsFlag = false,
+			displayOrder = 24)
+	public void setGofReplicates(int gofReplicates) {
+		if (gofReplicates > 0)
+			this.gofReplicates = gofReplicates;
+	}
+
+	public int getGofReplicates() {
+		return gofReplicates;
+	}
+
+	/**
+	 * Set a cache for the Kendall's tau values and MLE results. <br>
+	 * The cache can be shared by RegularVines, which are built on the same
+	 * data. It is not serialized with the RegularVine.
+	 * 
+	 * @param fitCache
+	 *            the cache or null to disable caching.
+	 */
+	public void setFitCache(FitCache fitCache) {
+		this.fitCache = fitCache;
+	}
+
+	public FitCache getFitCache() {
+		return fitCache;
+	}
+
+	/**
+	 * Add a listener on the RVine construction. <br>
+	 * The listeners are not serialized with the RegularVine.
+	 * 
+	 * @param l
+	 *            the listener.
+	 */
+	public synchronized void addBuildListener(BuildListener l) {
+		if (buildListeners == null) {
+			buildListeners = new ArrayList<BuildListener>();
+		}
+		if (l != null && !buildListeners.contains(l)) {
+			buildListeners.add(l);
+		}
+	}
+
+	/**
+	 * Remove a listener on the RVine construction.
+	 * 
+	 * @param l
+	 *            the listener.
+	 */
+	public synchronized void removeBuildListener(BuildListener l) {
+		if (buildListeners != null) {
+			buildListeners.remove(l);
+		}
+	}
+
+	/**
+	 * Set the number of MLE iterations per copula for the update function.
+	 * 
+	 * @param updateIterations
+	 *            number of iterations.
+	 */
+	public void setUpdateIterations(int updateIterations) {
+		if (updateIterations > 0)
+			this.updateIterations = updateIterations;
+	}
+
+	public int getUpdateIterations() {
+		return updateIterations;
+	}
+
+	/**
+	 * Set the step size of the update function. <br>
+	 * A fixed rate in (0, 1] forgets old observations exponentially, with 0
+	 * every observation has the same weight.
+	 * 
+	 * @param updateRate
+	 *            the step size.
+	 */
+	public void setUpdateRate(double updateRate) {
+		if (updateRate >= 0 && updateRate <= 1)
+			this.updateRate = updateRate;
+	}
+
+	public double getUpdateRate() {
+		return updateRate;
+	}
+
+	/**
+	 * Set the tolerance for Kendall's tau differences, when building with a
+	 * prior RVine.
+	 * 
+	 * @param priorTolerance
+	 *            the tolerance.
+	 */
+	public void setPriorTolerance(double priorTolerance) {
+		if (priorTolerance >= 0)
+			this.priorTolerance = priorTolerance;
+	}
+
+	public double getPriorTolerance() {
+		return priorTolerance;
+	}
+
 	// OptionHandler
 
 	/**
@@ -1,15 +1,26 @@
 package weka.estimators.vines;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.math3.analysis.UnivariateFunction;
 
+import weka.core.DenseInstance;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.SerializedObject;
 import weka.estimators.DensityEstimator;
 import weka.estimators.vines.copulas.*;
+import umontreal.ssj.probdist.NormalDist;
 
 /**
  * This class contains utility function.
@@ -18,6 +29,11 @@ import weka.estimators.vines.copulas.*;
  */
 public class VineUtils {
 	private static boolean debug = false;
+	public static final int GOF_REPLICATES = 100;
+	public static final int GOF_BATCH = 10;
+	public static final double GOF_ALPHA = 0.05;
+	public static final int KL_CHUNK = 1024;
+	public static final int KL_MIN_CHUNKS = 2;
 
 	/**
 	 * Get the maximum spanning tree. <br>
@@ -158,10 +174,83 @@ public class VineUtils {
 		return (P - Q) / Math.sqrt(n * m);
 	}
 
+	/**
+	 * Calculates the weighted empirical Kendall's tau. <br>
+	 * Every pair of observations is counted with the product of their
+	 * weights. For integer weights, the result equals Kendall's tau of the
+	 * data set with the observations repeated by their weights.
+	 * 
+	 * @param a
+	 *            a rank normalized random variable.
+	 * @param b
+	 *            another rank normalized random variable.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @return returns the weighted empirical Kendall's tau for a and b.
+	 */
+	public static double kendallsTau(double[] a, double[] b, double[] w) {
+		if (w == null) {
+			return kendallsTau(a, b);
+		}
+		if (!(a.length == b.length && a.length == w.length)) {
+			return Double.NaN;
+		}
+
+		double P = 0; // weight of concordant pairs
+		double Q = 0; // weight of discordant pairs
+		double T = 0; // weight of ties only in a
+		double U = 0; // weight of ties only in b
+
+		for (int i = 0; i < a.length - 1; i++) {
+			if (w[i] == 0) {
+				continue;
+			}
+			for (int j = i + 1; j < a.length; j++) {
+				double wij = w[i] * w[j];
+				if (wij == 0) {
+					continue;
+				}
+				double s = (a[i] - a[j]) * (b[i] - b[j]);
+				if (s > 0) {
+					P += wij;
+				} else if (s < 0) {
+					Q += wij;
+				} else if (a[i] == a[j] && b[i] != b[j]) {
+					T += wij;
+				} else if (a[i] != a[j] && b[i] == b[j]) {
+					U += wij;
+				}
+			}
+		}
+
+		double n = (P + Q + T);
+		double m = (P + Q + U);
+		return (P - Q) / Math.sqrt(n * m);
+	}
+
+	/**
+	 * Asymptotic standard deviation of the empirical Kendall's tau under
+	 * independence. <br>
+	 * The empirical tau of n independent observations is approximately
+	 * normal with variance 2(2n+5)/(9n(n-1)).
+	 * 
+	 * @param n
+	 *            number of observations.
+	 * @return returns the standard deviation of Kendall's tau.
+	 */
+	public static double kendallsTauStdDev(int n) {
+		if (n < 2) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return Math.sqrt(2.0 * (2 * n + 5) / (9.0 * n * (n - 1)));
+	}
+
 	/**
 	 * This is a goodness of fit test for copulas. <br>
 	 * It tests the copulae for fitting between a and b. The best copula will be
-	 * returned with its parameters.
+	 * returned with its parameters. <br>
+	 * It uses GOF_REPLICATES bootstrap replicates with seed 1 on the current
+	 * thread.
 	 * 
 	 * @param copulae
 	 *            An array of copula families that participate on the GOF-Test.
@@ -172,12 +261,36 @@ public class VineUtils {
 	 * @return The copula with its parameters that fits best.
 	 */
 	public static Copula goodnessOfFit(Copula[] copulae, double[] a, double[] b) {
+		return goodnessOfFit(copulae, a, b, GOF_REPLICATES, 1, 1);
+	}
+
+	/**
+	 * This is a goodness of fit test for copulas. <br>
+	 * It tests the copulae for fitting between a and b. The best copula will be
+	 * returned with its parameters. See pValue(c, a, b, N, seed, slots).
+	 * 
+	 * @param copulae
+	 *            An array of copula families that participate on the GOF-Test.
+	 * @param a
+	 *            An observation array.
+	 * @param b
+	 *            Another observation array.
+	 * @param N
+	 *            the number of bootstrap replicates per copula.
+	 * @param seed
+	 *            the random seed.
+	 * @param slots
+	 *            the number of threads for the replicates.
+	 * @return The copula with its parameters that fits best.
+	 */
+	public static Copula goodnessOfFit(Copula[] copulae, double[] a,
+			double[] b, int N, long seed, int slots) {
 
 		double[] p = new double[copulae.length];
 
 		for (int i = 0; i < copulae.length; i++) {
 			Copula c = copulae[i];
-			p[i] = pValue(c, a, b);
+			p[i] = pValue(c, a, b, N, seed, slots);
 		}
 
 		int out = 0;
@@ -190,7 +303,15 @@ public class VineUtils {
 	}
 
 	/**
-	 * Bootstrap method that is used for the GOF-Test
+	 * Parametric bootstrap method that is used for the GOF-Test. <br>
+	 * The test statistic is the sum of squared distances between the empirical
+	 * copula and the fitted copula at the observations. c is fitted to a and b
+	 * and keeps these parameters. Every replicate simulates n observations
+	 * from the fitted copula, refits a copy of c to their ranks and compares
+	 * the replicate statistic to the one of the data. <br>
+	 * The replicates get their own SplittableRandom, split from a generator
+	 * with the given seed in replicate order, so the p value does not depend
+	 * on the number of threads.
 	 * 
 	 * @param c
 	 *            A copula to compute the p value on.
@@ -198,73 +319,511 @@ public class VineUtils {
 	 *            An observation array.
 	 * @param b
 	 *            Another observation array.
+	 * @param N
+	 *            the number of bootstrap replicates.
+	 * @param seed
+	 *            the random seed.
+	 * @param slots
+	 *            the number of threads for the replicates.
 	 * @return The statistical p value for c.
 	 */
-	private static double pValue(Copula c, double[] a, double[] b) {
-		int N = 100;
-		int n = a.length;
-
+	public static double pValue(Copula c, double[] a, double[] b,
+			int N, long seed, int slots) {
 		c.mle(a, b);
+		double sn = cramerVonMises(c, a, b, null);
 
-		double sn = 0;
-		for (int i = 0; i < n; i++) {
-			sn += Math.pow(empCop(a, b, a[i], b[i]) - c.C(a[i], b[i]), 2);
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		boolean[] hit = replicates(tasks, c, a.length, sn,
+				new SplittableRandom(seed), N);
+		runTasks(tasks, slots);
+
+		return count(hit) / ((double) N);
+	}
+
+	/**
+	 * Get Kish's effective sample size of weighted observations,
+	 * (sum w)^2 / sum w^2. <br>
+	 * It does not depend on the scale of the weights, so normalized or
+	 * fractional weights give the right size. Collapsed duplicate rows
+	 * count with their multiplicity, if the summed squared weights of the
+	 * rows are given.
+	 * 
+	 * @param w
+	 *            the weights, null for unit weights.
+	 * @param sq
+	 *            the summed squared weights per row, null for w^2.
+	 * @param n
+	 *            the number of rows.
+	 * @return the effective number of observations.
+	 */
+	public static double effectiveSize(double[] w, double[] sq, int n) {
+		if (w == null) {
+			return n;
 		}
+		double sum = 0, sum2 = 0;
+		for (int i = 0; i < w.length; i++) {
+			sum += w[i];
+			sum2 += sq == null ? w[i] * w[i] : sq[i];
+		}
+		return sum2 > 0 ? sum * sum / sum2 : 0;
+	}
 
-		int hitCount = 0;
+	/**
+	 * GOF-Test based copula selection with a limited number of replicates.
+	 * <br>
+	 * The copulae are fitted to the (weighted) observations and bootstrapped
+	 * in rounds of GOF_BATCH replicates, see pValue(c, a, b, N, seed, slots).
+	 * After every round, the copula with the highest p value is the current
+	 * best. A copula is not bootstrapped any further, once the upper bound of
+	 * the Wilson confidence interval of its p value is below the lower bound
+	 * of the current best. The test stops when the current best is clearly
+	 * above all other copulae, every copula has GOF_REPLICATES replicates or
+	 * maxReplicates replicates were used in total. <br>
+	 * Ties are broken by the log-likelihood. The replicates have the
+	 * effective size of the observations, see effectiveSize(w, sq, n), but
+	 * at least 2 and at most the number of observations.
+	 * 
+	 * @param copulae
+	 *            An array of copula families that participate on the GOF-Test.
+	 * @param a
+	 *            An observation array.
+	 * @param b
+	 *            Another observation array.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @param maxReplicates
+	 *            the maximal number of replicates for all copulae.
+	 * @param seed
+	 *            the random seed.
+	 * @param slots
+	 *            the number of threads for the replicates.
+	 * @return The copula with its parameters that fits best.
+	 */
+	public static Copula sequentialGoodnessOfFit(Copula[] copulae,
+			double[] a, double[] b, double[] w, int maxReplicates, long seed,
+			int slots) {
+		return sequentialGoodnessOfFit(copulae, a, b, w, maxReplicates, seed,
+				slots, null);
+	}
 
-		for (int k = 0; k < N; k++) {
-			// generate random samples
-			double[] a2 = new double[n];
-			double[] b2 = new double[n];
+	/**
+	 * GOF-Test based copula selection with a limited number of replicates,
+	 * which takes the fits on the observations from a cache. <br>
+	 * See sequentialGoodnessOfFit(copulae, a, b, w, maxReplicates, seed,
+	 * slots). The fits on the bootstrap samples are not cached.
+	 * 
+	 * @param copulae
+	 *            An array of copula families that participate on the GOF-Test.
+	 * @param a
+	 *            An observation array.
+	 * @param b
+	 *            Another observation array.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @param maxReplicates
+	 *            the maximal number of replicates for all copulae.
+	 * @param seed
+	 *            the random seed.
+	 * @param slots
+	 *            the number of threads for the replicates.
+	 * @param cache
+	 *            the fit cache or null.
+	 * @return The copula with its parameters that fits best.
+	 */
+	public static Copula sequentialGoodnessOfFit(Copula[] copulae,
+			double[] a, double[] b, double[] w, int maxReplicates, long seed,
+			int slots, FitCache cache) {
+		int k = copulae.length;
+		double[] ll = new double[k];
+		double[] sn = new double[k];
+		int[] hits = new int[k];
+		int[] reps = new int[k];
+		boolean[] active = new boolean[k];
+		SplittableRandom[] roots = new SplittableRandom[k];
+
+		// replicates of the effective size, at least 2 and at most the rows
+		int n = (int) Math.round(effectiveSize(w, null, a.length));
+		n = Math.max(2, Math.min(n, a.length));
+
+		for (int i = 0; i < k; i++) {
+			ll[i] = cache != null ? cache.mle(copulae[i], a, b, w)
+					: copulae[i].mle(a, b, w);
+			sn[i] = cramerVonMises(copulae[i], a, b, w);
+			// common random numbers for all copulae
+			roots[i] = new SplittableRandom(seed);
+			active[i] = true;
+		}
 
-			for (int i = 0; i < n; i++) {
-				a2[i] = Math.random();
-				b2[i] = c.h2inverse(a2[i], Math.random());
+		double z = NormalDist.inverseF01(1 - GOF_ALPHA / 2);
+		int budget = maxReplicates;
+		int best = bestPValue(hits, reps, ll);
+
+		while (budget > 0) {
+			ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			boolean[][] hit = new boolean[k][];
+
+			for (int i = 0; i < k && budget > 0; i++) {
+				int count = Math.min(GOF_BATCH,
+						Math.min(budget, GOF_REPLICATES - reps[i]));
+				if (!active[i] || count <= 0) {
+					active[i] = false;
+					continue;
+				}
+				hit[i] = replicates(tasks, copulae[i], n, sn[i], roots[i],
+						count);
+				reps[i] += count;
+				budget -= count;
+			}
+			if (tasks.isEmpty()) {
+				break;
 			}
 
-			double[] u1 = rankNormalization(a2);
-			double[] u2 = rankNormalization(b2);
+			runTasks(tasks, slots);
+			for (int i = 0; i < k; i++) {
+				if (hit[i] != null) {
+					hits[i] += count(hit[i]);
+				}
+			}
 
-			c.mle(u1, u2);
+			best = bestPValue(hits, reps, ll);
+			double[] bestCI = wilson(hits[best], reps[best], z);
 
-			double sn2 = 0;
-			for (int i = 0; i < n; i++) {
-				sn2 += Math.pow(
-						empCop(u1, u2, u1[i], u2[i]) - c.C(u1[i], u2[i]), 2);
+			boolean open = false;
+			for (int i = 0; i < k; i++) {
+				if (i == best || !active[i]) {
+					continue;
+				}
+				if (wilson(hits[i], reps[i], z)[1] < bestCI[0]) {
+					// clearly below the current best
+					active[i] = false;
+				} else {
+					open = true;
+				}
+			}
+			if (!open) {
+				break;
 			}
+		}
 
-			if (sn2 > sn)
-				hitCount++;
+		if (debug) {
+			System.out.println(copulae[best].name() + ": p = "
+					+ hits[best] / (double) reps[best] + " after "
+					+ (maxReplicates - budget) + " replicates");
+		}
+		return copulae[best];
+	}
 
+	/**
+	 * Get the copula with the highest bootstrap p value. <br>
+	 * Copulae without replicates are only considered if no copula has
+	 * replicates. Ties are broken by the log-likelihood.
+	 * 
+	 * @param hits
+	 *            the number of replicates with a larger statistic.
+	 * @param reps
+	 *            the number of replicates.
+	 * @param ll
+	 *            the log-likelihoods.
+	 * @return returns the index of the best copula.
+	 */
+	private static int bestPValue(int[] hits, int[] reps, double[] ll) {
+		int out = 0;
+		double pOut = reps[0] > 0 ? hits[0] / (double) reps[0] : -1;
+
+		for (int i = 1; i < hits.length; i++) {
+			double p = reps[i] > 0 ? hits[i] / (double) reps[i] : -1;
+			if (p > pOut || (p == pOut && ll[i] > ll[out])) {
+				out = i;
+				pOut = p;
+			}
 		}
+		return out;
+	}
 
-		return hitCount / ((double) N);
+	/**
+	 * The Wilson score interval for a binomial proportion.
+	 * 
+	 * @param hits
+	 *            the number of successes.
+	 * @param n
+	 *            the number of trials.
+	 * @param z
+	 *            the standard normal quantile of the confidence level.
+	 * @return returns the interval as [lower, upper].
+	 */
+	private static double[] wilson(int hits, int n, double z) {
+		if (n == 0) {
+			return new double[] { 0, 1 };
+		}
+		double p = hits / (double) n;
+		double z2 = z * z / n;
+		double center = (p + z2 / 2) / (1 + z2);
+		double half = z / (1 + z2)
+				* Math.sqrt(p * (1 - p) / n + z2 / (4 * n));
+		return new double[] { center - half, center + half };
 	}
 
 	/**
-	 * Method to simulate an empirical copula.
+	 * Adds bootstrap replicates of the GOF-Test to a task list. <br>
+	 * Every replicate simulates n observations from c, refits a copy of c to
+	 * their ranks and compares the replicate statistic to sn. The replicates
+	 * get their own SplittableRandom, split from root in replicate order.
+	 * 
+	 * @param tasks
+	 *            the task list.
+	 * @param c
+	 *            a fitted copula.
+	 * @param n
+	 *            the number of observations per replicate.
+	 * @param sn
+	 *            the statistic of the data.
+	 * @param root
+	 *            the generator to split the replicate generators from.
+	 * @param count
+	 *            the number of replicates.
+	 * @return returns for every replicate, if its statistic is larger than sn
+	 *         after the tasks were run.
+	 */
+	private static boolean[] replicates(ArrayList<Callable<Void>> tasks,
+			final Copula c, final int n, final double sn,
+			SplittableRandom root, int count) {
+		final boolean[] hit = new boolean[count];
+
+		for (int k = 0; k < count; k++) {
+			final SplittableRandom r = root.split();
+			final int replicate = k;
+
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					// refit a copy, so c keeps its parameters
+					Copula c2 = copy(c);
+
+					// generate random samples
+					double[] a2 = new double[n];
+					double[] b2 = new double[n];
+
+					for (int i = 0; i < n; i++) {
+						a2[i] = r.nextDouble();
+						b2[i] = c2.h1inverse(a2[i], r.nextDouble());
+					}
+
+					double[] u1 = rankNormalization(a2);
+					double[] u2 = rankNormalization(b2);
+
+					c2.mle(u1, u2);
+
+					hit[replicate] = cramerVonMises(c2, u1, u2, null) > sn;
+					return null;
+				}
+			});
+		}
+		return hit;
+	}
+
+	/**
+	 * Get the number of true values.
+	 * 
+	 * @param hit
+	 *            a boolean array.
+	 * @return returns the number of true values.
+	 */
+	private static int count(boolean[] hit) {
+		int out = 0;
+		for (boolean h : hit) {
+			if (h)
+				out++;
+		}
+		return out;
+	}
+
+	/**
+	 * The Cram&eacute;r-von Mises statistic of the GOF-Test. <br>
+	 * It is the (weighted) sum of squared distances between the empirical
+	 * copula and c at the observations.
+	 * 
+	 * @param c
+	 *            a fitted copula.
+	 * @param a
+	 *            An observation array.
+	 * @param b
+	 *            Another observation array.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @return returns the statistic.
+	 */
+	private static double cramerVonMises(Copula c, double[] a, double[] b,
+			double[] w) {
+		double[] emp = empiricalCopula(a, b, w);
+
+		double sn = 0;
+		for (int i = 0; i < a.length; i++) {
+			double d = Math.pow(emp[i] - c.C(a[i], b[i]), 2);
+			sn += w == null ? d : w[i] * d;
+		}
+		return sn;
+	}
+
+	/**
+	 * Evaluates the empirical copula at the observations. <br>
+	 * The i-th value is the share of observations j with a[j] &lt;= a[i] and
+	 * b[j] &lt;= b[i]. The observations are added in the order of a to a
+	 * Fenwick tree over the ranks of b, so the evaluation needs O(n log n)
+	 * instead of O(n^2) steps.
+	 * 
+	 * @param a
+	 *            An observation array.
+	 * @param b
+	 *            Another observation array.
+	 * @return The cdf of the empirical copula for a and b evaluated at the
+	 *         observations.
+	 */
+	public static double[] empiricalCopula(double[] a, double[] b) {
+		return empiricalCopula(a, b, null);
+	}
+
+	/**
+	 * Evaluates the weighted empirical copula at the observations. <br>
+	 * See empiricalCopula(a, b), the observations count with their weights.
 	 * 
 	 * @param a
 	 *            An observation array.
 	 * @param b
 	 *            Another observation array.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @return The cdf of the empirical copula for a and b evaluated at the
+	 *         observations.
+	 */
+	public static double[] empiricalCopula(final double[] a, double[] b,
+			double[] w) {
+		int n = a.length;
+		double[] out = new double[n];
+		if (n == 0)
+			return out;
+
+		// ranks of b, tied values share the highest rank
+		double[] sorted = b.clone();
+		Arrays.sort(sorted);
+		int[] rank = new int[n];
+		for (int i = 0; i < n; i++) {
+			rank[i] = upperBound(sorted, b[i]);
+		}
+
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i, Integer j) {
+				return Double.compare(a[i], a[j]);
+			}
+		});
+
+		double total = 0;
+		double[] tree = new double[n + 1];
+		for (int s = 0; s < n;) {
+			// add all observations with the same a value before counting
+			int e = s;
+			while (e < n && a[order[e]] == a[order[s]]) {
+				double x = w == null ? 1 : w[order[e]];
+				for (int k = rank[order[e]]; k <= n; k += k & -k) {
+					tree[k] += x;
+				}
+				total += x;
+				e++;
+			}
+			for (int t = s; t < e; t++) {
+				double obs = 0;
+				for (int k = rank[order[t]]; k > 0; k -= k & -k) {
+					obs += tree[k];
+				}
+				out[order[t]] = obs;
+			}
+			s = e;
+		}
+
+		for (int i = 0; i < n; i++) {
+			out[i] /= total;
+		}
+		return out;
+	}
+
+	/**
+	 * Get the number of sorted values less than or equal to x.
+	 * 
+	 * @param sorted
+	 *            a sorted array.
 	 * @param x
-	 *            X value of request point.
-	 * @param y
-	 *            Y value of request point.
-	 * @return The cdf of the empirical copula for a and b evaluated at x, y.
+	 *            the value to search.
+	 * @return returns the number of values &lt;= x.
 	 */
-	private static double empCop(double[] a, double[] b, double x, double y) {
-		int N = a.length;
-		int obs = 0;
+	private static int upperBound(double[] sorted, double x) {
+		int lo = 0;
+		int hi = sorted.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (sorted[mid] <= x) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
 
-		for (int i = 0; i < N; i++) {
-			if (a[i] <= x && b[i] <= y)
-				obs++;
+	/**
+	 * Creates a deep copy of a copula.
+	 * 
+	 * @param c
+	 *            a copula.
+	 * @return returns the copy.
+	 */
+	public static Copula copy(Copula c) {
+		try {
+			return (Copula) new SerializedObject(c).getObject();
+		} catch (Exception e) {
+			throw new IllegalStateException("Failed to copy " + c.name(), e);
 		}
+	}
 
-		return 1.0 / N * obs;
+	/**
+	 * Runs tasks on a number of threads. <br>
+	 * With less than two slots, the tasks run in order on the current thread.
+	 * Exceptions of the tasks are rethrown as IllegalStateException.
+	 * 
+	 * @param tasks
+	 *            the tasks.
+	 * @param slots
+	 *            the number of threads.
+	 */
+	public static void runTasks(ArrayList<Callable<Void>> tasks, int slots) {
+		if (slots <= 1 || tasks.size() <= 1) {
+			for (Callable<Void> t : tasks) {
+				try {
+					t.call();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(
+				Math.min(slots, tasks.size()));
+		try {
+			for (Future<Void> f : pool.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
 	}
 
 	/**
@@ -280,12 +839,27 @@ public class VineUtils {
 	 * @return returns the log-likelihood.
 	 */
 	public static double logLikelihood(Copula c, double[] a, double[] b) {
-		double logLik = 0;
+		return c.logLikelihood(a, b);
+	}
 
-		for (int i = 0; i < a.length; i++) {
-			logLik += Math.log(c.density(a[i], b[i]));
-		}
-		return logLik;
+	/**
+	 * Weighted Log-Likelihood calculation for copulae. <br>
+	 * It is used to calculate the copula log-likelihood for the weighted
+	 * MLE.
+	 * 
+	 * @param c
+	 *            a copula, whose log-likelihood is calculated.
+	 * @param a
+	 *            an observation array.
+	 * @param b
+	 *            another observation array.
+	 * @param w
+	 *            observation weights, null for unit weights.
+	 * @return returns the weighted log-likelihood.
+	 */
+	public static double logLikelihood(Copula c, double[] a, double[] b,
+			double[] w) {
+		return c.logLikelihood(a, b, w);
 	}
 
 	/**
@@ -527,4 +1101,88 @@ public class VineUtils {
 		
 		return out;
 	}
+	
+	/**
+	 * Monte Carlo estimator for the Kullback Leibler Divergence KL(q||p).
+	 * <br>
+	 * It samples from q and averages log q(x) - log p(x) over the samples.
+	 * The samples are drawn and scored in chunks of KL_CHUNK on the given
+	 * number of threads, every chunk with its own SplittableRandom split from
+	 * a generator with the given seed. The chunks are added in chunk order
+	 * and the estimation stops at the first chunk, at which the standard
+	 * error is at most targetError, so the result does not depend on the
+	 * number of threads.
+	 * 
+	 * @param q A built RegularVine to sample from.
+	 * @param p Another density model.
+	 * @param targetError the standard error to stop at (0 = use maxSamples).
+	 * @param maxSamples the maximal number of samples.
+	 * @param seed the random seed.
+	 * @param slots the number of threads.
+	 * @return The estimate, its standard error and the number of samples as
+	 * [kl, se, n].
+	 */
+	public static double[] KullbackLeiblerDivergenceMC(final RegularVine q,
+			final DensityEstimator p, double targetError, final int maxSamples,
+			long seed, int slots){
+		if(!q.built){
+			System.err.println(
+					"Use estimate(data, w) first to build the estimator!");
+			return null;
+		}
+		SplittableRandom root = new SplittableRandom(seed);
+		int maxChunks = (maxSamples + KL_CHUNK - 1) / KL_CHUNK;
+		
+		double n = 0, mean = 0, m2 = 0;
+		int done = 0;
+		
+		while(done < maxChunks){
+			int count = Math.min(Math.max(1, slots), maxChunks - done);
+			final double[][] stats = new double[count][];
+			ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			
+			for(int c=0; c<count; c++){
+				final SplittableRandom r = root.split();
+				final int chunk = c;
+				final int len = Math.min(KL_CHUNK,
+						maxSamples - (done + c) * KL_CHUNK);
+				
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						double[][] x = q.createRandomSamples(len, r);
+						
+						// running mean and sum of squared deviations
+						double cm = 0, cm2 = 0;
+						for(int i=0; i<len; i++){
+							Instance inst = new DenseInstance(1.0, x[i]);
+							double d = q.logDensity(inst) - p.logDensity(inst);
+							double delta = d - cm;
+							cm += delta / (i + 1);
+							cm2 += delta * (d - cm);
+						}
+						stats[chunk] = new double[]{len, cm, cm2};
+						return null;
+					}
+				});
+			}
+			runTasks(tasks, slots);
+			
+			for(double[] st : stats){
+				double total = n + st[0];
+				double delta = st[1] - mean;
+				mean += delta * st[0] / total;
+				m2 += st[2] + delta * delta * n * st[0] / total;
+				n = total;
+				done++;
+				
+				double se = Math.sqrt(m2 / (n - 1) / n);
+				if(done >= KL_MIN_CHUNKS && se <= targetError){
+					return new double[]{mean, se, n};
+				}
+			}
+		}
+		
+		return new double[]{mean, n > 1 ? Math.sqrt(m2 / (n - 1) / n) : 0, n};
+	}
 }
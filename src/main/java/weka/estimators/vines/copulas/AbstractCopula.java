@@ -56,11 +56,33 @@ public abstract class AbstractCopula implements Copula{
 		VineUtils.bisectionInvert(t, tau, lb[0], ub[0]);
 	}
 	
+	public double[] tauRange() {
+		if(lb.length == 0) return new double[]{0, 0};
+		
+		double[] pars = getParams().clone();
+		double[] bound = pars.clone();
+		
+		bound[0] = lb[0];
+		setParams(bound.clone());
+		double a = tau();
+		bound[0] = ub[0];
+		setParams(bound.clone());
+		double b = tau();
+		
+		setParams(pars);
+		return new double[]{Math.min(a, b), Math.max(a, b)};
+	}
+	
 	public double mle(double[] a, double[] b){
-		CopulaMLE cmle = new CopulaMLE(this, a, b);
+		return mle(a, b, null);
+	}
+	
+	public double mle(double[] a, double[] b, double[] w){
+		CopulaMLE cmle = new CopulaMLE(this, a, b, w);
 		
 		double[] initX = getMLEStart();
 		double[][] constr = getParBounds();
+		fitStarted();
 		try {
 			double[] x = cmle.findArgmin(initX, constr); 
 			 while(x == null){  // 200 iterations are not enough
@@ -69,10 +91,68 @@ public abstract class AbstractCopula implements Copula{
 			 }
 		} catch (Exception e) {
 			// e.printStackTrace();
+		} finally {
+			fitFinished();
 		}
 		return -cmle.getMinFunction();
 	}
 	
+	public double mle(double[] a, double[] b, double[] w, double[] start,
+			int maxIter){
+		CopulaMLE cmle = new CopulaMLE(this, a, b, w);
+		cmle.setMaxIteration(maxIter);
+		
+		double[][] constr = getParBounds();
+		double[] x = null;
+		fitStarted();
+		try {
+			try {
+				x = cmle.findArgmin(start.clone(), constr);
+				if(x == null){  // keep the last iteration
+					x = cmle.getVarbValues();
+				}
+			} catch (Exception e) {
+				// e.printStackTrace();
+			}
+			if(x != null) setParams(x.clone());
+			return logLikelihood(a, b, w);
+		} finally {
+			fitFinished();
+		}
+	}
+	
+	/**
+	 * Called before the MLE of the copula parameters.
+	 * Copulae can set up caches here, which are only valid during one fit.
+	 */
+	protected void fitStarted(){
+	}
+	
+	/**
+	 * Called after the MLE of the copula parameters.
+	 * The caches of the fit shall be released here, so a fitted copula
+	 * does not keep references to the observations.
+	 */
+	protected void fitFinished(){
+	}
+	
+	public double logLikelihood(double[] a, double[] b){
+		return logLikelihood(a, b, null);
+	}
+	
+	public double logLikelihood(double[] a, double[] b, double[] w){
+		double logLik = 0;
+		
+		for(int i=0; i<a.length; i++){
+			if(w == null){
+				logLik += Math.log(density(a[i], b[i]));
+			}else if(w[i] != 0){
+				logLik += w[i]*Math.log(density(a[i], b[i]));
+			}
+		}
+		return logLik;
+	}
+	
 	public double[][] simulate(int n){
 		if(n <= 0 ) return null;
 		
@@ -111,6 +111,57 @@ public interface Copula extends Serializable{
 	 */
 	public double mle(double[] a, double[] b);
 	
+	/**
+	 * MLE to estimate the copula parameters on weighted observations.
+	 * 
+	 * @param	a	data of variable.
+	 * @param	b	data of another variable.
+	 * @param	w	observation weights, null for unit weights.
+	 * @return returns the maximum likelihood.
+	 */
+	public double mle(double[] a, double[] b, double[] w);
+	
+	/**
+	 * MLE to estimate the copula parameters from given start parameters.
+	 * <br>
+	 * It is used to warm-start the estimation from a previous fit.
+	 * If the optimization does not converge within the given number of
+	 * iterations, the parameters of the last iteration are kept.
+	 * 
+	 * @param	a	data of variable.
+	 * @param	b	data of another variable.
+	 * @param	w	observation weights, null for unit weights.
+	 * @param	start	start parameters within the parameter bounds.
+	 * @param	maxIter	maximal number of iterations.
+	 * @return returns the log-likelihood of the estimated parameters.
+	 */
+	public double mle(double[] a, double[] b, double[] w, double[] start,
+			int maxIter);
+	
+	/**
+	 * Log-Likelihood of the copula for two observation arrays.
+	 * <br>
+	 * It is used as objective function for the MLE, so copula families
+	 * can reuse data dependent transformations over the iterations.
+	 * 
+	 * @param	a	data of variable.
+	 * @param	b	data of another variable.
+	 * @return returns the log-likelihood.
+	 */
+	public double logLikelihood(double[] a, double[] b);
+	
+	/**
+	 * Weighted log-likelihood of the copula for two observation arrays.
+	 * <br>
+	 * Observations with weight 0 are skipped.
+	 * 
+	 * @param	a	data of variable.
+	 * @param	b	data of another variable.
+	 * @param	w	observation weights, null for unit weights.
+	 * @return returns the weighted log-likelihood.
+	 */
+	public double logLikelihood(double[] a, double[] b, double[] w);
+	
 	/**
 	 * Copula based Kendall's tau calculation.
 	 * <br>
@@ -131,6 +182,16 @@ public interface Copula extends Serializable{
 	 */
 	public void tauInverse(double tau);
 	
+	/**
+	 * Get the attainable Kendall's tau range.
+	 * <br>
+	 * It is the range of tau values between the parameter bounds,
+	 * which can be used to skip families that cannot fit a given tau.
+	 * 
+	 * @return the tau range as [min, max].
+	 */
+	public double[] tauRange();
+	
 	/**
 	 * Information if copula can be rotated.
 	 * 
@@ -1,7 +1,9 @@
 package weka.estimators.vines.copulas;
 
+import org.apache.commons.math3.analysis.UnivariateFunction;
+
 import weka.estimators.vines.VineUtils;
-import weka.estimators.vines.functions.debyeSub;
+import weka.estimators.vines.functions.TauTable;
 
 /**
  * This is the class to represent Frank copula family for RVines.
@@ -13,11 +15,31 @@ import weka.estimators.vines.functions.debyeSub;
  * The density function, the h-function and its inverse were presented by
  * D. Schirmacher and E. Schirmacher (2008):
  * Multivariate dependence modeling using pair-copulas.
+ * <br>
+ * The Debye function is evaluated by its Bernoulli series for small and
+ * by its exponential series for large arguments, see I. A. Stegun and
+ * M. Abramowitz (1964): Handbook of mathematical functions, 27.1.
  * 
  * @author Christian Lamberty (clamber@students.uni-mainz.de)
  */
 public class FrankCopula extends AbstractCopula{
 	private static final long serialVersionUID = 633930063588075575L;
+	private static final double eps = Math.pow(10, -17);
+	// coefficients B_2k / ((2k+1) (2k)!) of the Debye1 Bernoulli series
+	private static final double[] bernoulli = new double[]{
+		1.0/36,
+		-1.0/3600,
+		1.0/211680,
+		-1.0/10886400,
+		1.0/526901760,
+		-691.0/16999766784000.0,
+		1.0/1120863744000.0,
+		-3617.0/181400588328960000.0,
+		43867.0/97072790126247936000.0,
+		-174611.0/16860010916664115200000.0,
+		77683.0/324325300906011525120000.0,
+		-236364091.0/42345603418293591736320000000.0
+	};
 	double d;
 	
 	/**
@@ -109,24 +131,75 @@ public class FrankCopula extends AbstractCopula{
 	
 	@Override
 	public double tau() {
+		return tau(d);
+	}
+	
+	/**
+	 * Kendall's tau for a Frank parameter.
+	 * @param d dependence parameter.
+	 * @return returns the tau value.
+	 */
+	private static double tau(double d){
 		if(d == 0) return 0;
 		return 1 - 4 / d * (1 - debye1(d));
 	}
 	
+	@Override
+	public void tauInverse(double tau) {
+		setParams(new double[]{TauTableHolder.table.parameter(tau)});
+	}
+	
+	@Override
+	public double[] tauRange() {
+		return TauTableHolder.table.tauRange();
+	}
+	
 	/**
 	 * Debye1 function for tau calculation.
 	 * @param x input parameter.
 	 * @return returns the debye1(x) value.
 	 */
-	private double debye1(double x){
+	private static double debye1(double x){
 		if(x == 0) return 1;
+		// D1(-x) = D1(x) + x/2
+		if(x < 0) return debye1(-x) - x/2;
 		
-		double y = 1;
-		y = VineUtils.simpsonIntegrate(new debyeSub(), 1000, 0, x);
+		if(x < 2){
+			// Bernoulli series
+			double x2 = x*x;
+			double xk = 1;
+			double y = 1 - x/4;
+			for(int k=0; k<bernoulli.length; k++){
+				xk *= x2;
+				y += bernoulli[k]*xk;
+			}
+			return y;
+		}
 		
+		// exponential series of the integral from x to infinity
+		double y = Math.PI*Math.PI/6;
+		double ex = Math.exp(-x);
+		double exk = 1;
+		for(int k=1; k<200; k++){
+			exk *= ex;
+			double term = exk*(x/k + 1.0/(k*k));
+			y -= term;
+			if(term < eps*y) break;
+		}
 		return y/x;
 	}
 	
+	/**
+	 * Lazily initialized tau table, shared by all Frank copulae.
+	 */
+	private static class TauTableHolder {
+		static final TauTable table = new TauTable(new UnivariateFunction(){
+			public double value(double x) {
+				return tau(x);
+			}
+		}, TauTable.linearGrid(-30, 30, 2000));
+	}
+	
 	@Override
 	public String name() {
 		return "Frank";
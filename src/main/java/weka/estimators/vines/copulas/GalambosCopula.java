@@ -1,7 +1,10 @@
 package weka.estimators.vines.copulas;
 
+import org.apache.commons.math3.analysis.UnivariateFunction;
+
 import weka.estimators.vines.VineUtils;
 import weka.estimators.vines.functions.GalambosTauf;
+import weka.estimators.vines.functions.TauTable;
 
 /**
  * This is the class to represent Galambos copula family for RVines.
@@ -9,6 +12,9 @@ import weka.estimators.vines.functions.GalambosTauf;
  * The cumulative distribution function, the density function and the 
  * h-function were presented by D. Schirmacher and E. Schirmacher (2008):
  * Multivariate dependence modeling using pair-copulas.
+ * <br>
+ * Kendall's tau has no closed form, it is integrated once on a parameter
+ * grid and interpolated afterwards.
  * 
  * @author Christian Lamberty (clamber@students.uni-mainz.de)
  */
@@ -100,7 +106,32 @@ public class GalambosCopula extends AbstractCopula{
 	
 	@Override
 	public double tau() {
-		return VineUtils.simpsonIntegrate(new GalambosTauf(d), 1000, 0, 1);
+		return TauTableHolder.table.tau(d);
+	}
+	
+	@Override
+	public void tauInverse(double tau) {
+		setParams(new double[]{TauTableHolder.table.parameter(tau)});
+	}
+	
+	@Override
+	public double[] tauRange() {
+		return TauTableHolder.table.tauRange();
+	}
+	
+	/**
+	 * Lazily initialized tau table, shared by all Galambos copulae.
+	 * <br>
+	 * The logarithmic grid resolves the steep rise of tau for small
+	 * parameters, the interpolation error is below 1e-9.
+	 */
+	private static class TauTableHolder {
+		static final TauTable table = new TauTable(new UnivariateFunction(){
+			public double value(double x) {
+				return VineUtils.simpsonIntegrate(new GalambosTauf(x),
+						1000, 0, 1);
+			}
+		}, TauTable.logGrid(tol, 30, 1000));
 	}
 
 	@Override
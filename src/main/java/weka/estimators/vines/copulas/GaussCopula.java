@@ -3,6 +3,7 @@ package weka.estimators.vines.copulas;
 import umontreal.ssj.probdist.NormalDist;
 import umontreal.ssj.probdistmulti.BiNormalDist;
 import weka.estimators.vines.VineUtils;
+import weka.estimators.vines.functions.QuantileCache;
 
 /**
  * This is the class to represent Gauss copula family for RVines.
@@ -23,6 +24,7 @@ import weka.estimators.vines.VineUtils;
 public class GaussCopula extends AbstractCopula{
 	private static final long serialVersionUID = 7450364339088849215L;
 	private double p;
+	private transient QuantileCache qa, qb;
 	
 	/**
 	 * Constructor
@@ -69,6 +71,16 @@ public class GaussCopula extends AbstractCopula{
 		double a = NormalDist.inverseF01(x);
 		double b = NormalDist.inverseF01(y);
 		
+		return normalDensity(a, b);
+	}
+	
+	/**
+	 * The density function on the normal quantiles.
+	 * @param a normal quantile of x.
+	 * @param b normal quantile of y.
+	 * @return returns the copula density.
+	 */
+	private double normalDensity(double a, double b){
 		double pp = p*p;
 		
 		double out = Math.exp(-(pp*(a*a+b*b)-2*p*a*b) / (2*(1-pp)))
@@ -76,6 +88,37 @@ public class GaussCopula extends AbstractCopula{
 		
 		return out;
 	}
+	
+	@Override
+	protected void fitStarted(){
+		qa = new QuantileCache();
+		qb = new QuantileCache();
+	}
+	
+	@Override
+	protected void fitFinished(){
+		qa = null;
+		qb = null;
+	}
+	
+	@Override
+	public double logLikelihood(double[] a, double[] b, double[] w){
+		if(p==0) return 0;
+		
+		// the normal quantiles are reused over the MLE iterations
+		double[] x = (qa == null ? new QuantileCache() : qa).normal(a);
+		double[] y = (qb == null ? new QuantileCache() : qb).normal(b);
+		
+		double logLik = 0;
+		for(int i=0; i<x.length; i++){
+			if(w == null){
+				logLik += Math.log(normalDensity(x[i], y[i]));
+			}else if(w[i] != 0){
+				logLik += w[i]*Math.log(normalDensity(x[i], y[i]));
+			}
+		}
+		return logLik;
+	}
 
 	public double h1Function(double x, double y) {
 		if(p==0) return y;
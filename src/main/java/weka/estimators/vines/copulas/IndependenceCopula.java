@@ -46,6 +46,11 @@ public class IndependenceCopula extends AbstractCopula{
 		return 0;
 	}
 
+	@Override
+	public void tauInverse(double tau) {
+		// There is no parameter to compute
+	}
+	
 	@Override
 	public String name() {
 		return "Independence";
@@ -61,4 +66,17 @@ public class IndependenceCopula extends AbstractCopula{
 		// There is no parameter to optimize
 		return 0;
 	}
+	
+	@Override
+	public double mle(double[] a, double[] b, double[] w) {
+		// There is no parameter to optimize
+		return 0;
+	}
+	
+	@Override
+	public double mle(double[] a, double[] b, double[] w, double[] start,
+			int maxIter) {
+		// There is no parameter to optimize
+		return 0;
+	}
 }
@@ -1,8 +1,11 @@
 package weka.estimators.vines.copulas;
 
-import umontreal.ssj.probdist.StudentDist;
+import org.apache.commons.math3.analysis.UnivariateFunction;
+
 import umontreal.ssj.probdistmulti.BiStudentDist;
 import weka.estimators.vines.VineUtils;
+import weka.estimators.vines.functions.QuantileCache;
+import weka.estimators.vines.functions.StudentKernel;
 
 /**
  * This is the class to represent Student T copula family for RVines.
@@ -18,13 +21,20 @@ import weka.estimators.vines.VineUtils;
  * The cumulative distribution function, the density function, the h-function
  * and its inverse were presented by K. Aas et al. (2009): Pair-copula
  * constructions of multiple dependence.
+ * <br>
+ * The degree of freedom is real valued. The univariate Student t functions
+ * are provided by a StudentKernel, which is exchanged on parameter changes.
+ * The evaluation functions take the quantiles from the kernel's table, so
+ * a fitted copula computes every quantile node once.
  * 
  * @author Christian Lamberty (clamber@students.uni-mainz.de)
  */
 public class TCopula extends AbstractCopula{
-	private static final long serialVersionUID = 2868000059648884715L;
+	private static final long serialVersionUID = -4716245830142387725L;
 	private double p;
-	private int v;
+	private double v;
+	private StudentKernel k, k1;
+	private transient QuantileCache qa, qb;
 	
 	/**
 	 * Constructor
@@ -32,6 +42,9 @@ public class TCopula extends AbstractCopula{
 	public TCopula() {
 		p = 0.5;
 		v = 8;
+		params = new double[]{p, v};
+		k = new StudentKernel(v);
+		k1 = new StudentKernel(v+1);
 		lb = new double[]{-1, 2};
 		ub = new double[]{1, 30};
 		start = new double[]{0.5, 8};
@@ -44,14 +57,17 @@ public class TCopula extends AbstractCopula{
 	 * params = {p, v}
 	 * <br>
 	 * p : probability | -1 &lt; p &lt; 1
-	 * v : degree of freedom | natural number &gt; 0
+	 * v : degree of freedom | real number &gt; 0
 	 */
 	@Override
 	public void setParams(double[] params){
 		super.setParams(params);
 		p = params[0];
-		if(params.length > 1)
-			v = (int) params[1];
+		if(params.length > 1 && params[1] != v){
+			v = params[1];
+			k = new StudentKernel(v);
+			k1 = new StudentKernel(v+1);
+		}
 	}
 	
 	@Override
@@ -59,10 +75,21 @@ public class TCopula extends AbstractCopula{
 		x = VineUtils.laplaceCorrection(x);
 		y = VineUtils.laplaceCorrection(y);
 		
-		double a = StudentDist.inverseF(v, x);
-		double b = StudentDist.inverseF(v, y);
+		if(k.isInteger()){
+			double a = k.inverseF(x);
+			double b = k.inverseF(y);
+			
+			return BiStudentDist.cdf((int) v, a, b, p);
+		}
 		
-		return BiStudentDist.cdf(v, a, b, p);
+		// C(x, y) is the integral of the h-function over the second argument
+		final double fx = x;
+		UnivariateFunction h = new UnivariateFunction(){
+			public double value(double t) {
+				return h2Function(fx, t);
+			}
+		};
+		return VineUtils.simpsonIntegrate(h, 200, 0, y);
 	}
 	
 	@Override
@@ -70,20 +97,68 @@ public class TCopula extends AbstractCopula{
 		x = VineUtils.laplaceCorrection(x);
 		y = VineUtils.laplaceCorrection(y);
 		
-		double a = StudentDist.inverseF(v, x);
-		double b = StudentDist.inverseF(v, y);
+		double a = k.quantile(x);
+		double b = k.quantile(y);
 		
+		return Math.exp(logStudentDensity(a, b));
+	}
+	
+	/**
+	 * The log-density function on the Student t quantiles.
+	 * @param a Student t quantile of x.
+	 * @param b Student t quantile of y.
+	 * @return returns the copula log-density.
+	 */
+	private double logStudentDensity(double a, double b){
 		double pp = p*p;
 		
-		double ad = StudentDist.density(v, a);
-		double bd = StudentDist.density(v, b);
-		
-		double out = Math.pow(1 + (a*a + b*b - 2*p*a*b)/(v*(1-pp)), -(v+2)/2.0)
-				/(2*Math.PI*ad*bd*Math.sqrt(1-pp));
+		double out = -(v+2)/2.0*Math.log1p((a*a + b*b - 2*p*a*b)/(v*(1-pp)))
+				- Math.log(2*Math.PI) - 0.5*Math.log(1-pp)
+				- k.logDensity(a) - k.logDensity(b);
 		
 		return out;
 	}
 	
+	@Override
+	protected void fitStarted(){
+		qa = new QuantileCache();
+		qb = new QuantileCache();
+	}
+	
+	@Override
+	protected void fitFinished(){
+		qa = null;
+		qb = null;
+	}
+	
+	@Override
+	public double logLikelihood(double[] a, double[] b, double[] w){
+		// during a fit, the quantiles are cached on a grid of degrees of freedom
+		double[] x, y;
+		if(qa != null){
+			x = qa.student(a, k);
+			y = qb.student(b, k);
+		}else{
+			// the kernel's quantile table outside of a fit
+			x = new double[a.length];
+			y = new double[b.length];
+			for(int i=0; i<x.length; i++){
+				x[i] = k.quantile(VineUtils.laplaceCorrection(a[i]));
+				y[i] = k.quantile(VineUtils.laplaceCorrection(b[i]));
+			}
+		}
+		
+		double logLik = 0;
+		for(int i=0; i<x.length; i++){
+			if(w == null){
+				logLik += logStudentDensity(x[i], y[i]);
+			}else if(w[i] != 0){
+				logLik += w[i]*logStudentDensity(x[i], y[i]);
+			}
+		}
+		return logLik;
+	}
+	
 	@Override
 	public double h1Function(double x, double y) {		
 		return hFunction(y, x);
@@ -104,10 +179,10 @@ public class TCopula extends AbstractCopula{
 		x = VineUtils.laplaceCorrection(x);
 		y = VineUtils.laplaceCorrection(y);
 		
-		double a = StudentDist.inverseF(v, x);
-		double b = StudentDist.inverseF(v, y);
+		double a = k.quantile(x);
+		double b = k.quantile(y);
 		
-		double out = StudentDist.cdf(v+1, ((a-p*b)/Math.sqrt(((v+b*b)*(1-p*p))
+		double out = k1.cdf(((a-p*b)/Math.sqrt(((v+b*b)*(1-p*p))
 				/(v+1))));
 		return out;
 	}
@@ -126,4 +201,4 @@ public class TCopula extends AbstractCopula{
 	public String token() {
 		return "T";
 	}
-}
\ No newline at end of file
+}
@@ -17,6 +17,7 @@ public class CopulaMLE extends Optimization {
 	private Copula c;
 	private double[] a;
 	private double[] b;
+	private double[] w;
 	
 	/**
 	 * Constructor
@@ -29,9 +30,25 @@ public class CopulaMLE extends Optimization {
 	 * @param b Another observation array.
 	 */
 	public CopulaMLE(Copula c, double[] a, double[] b){
+		this(c, a, b, null);
+	}
+	
+	/**
+	 * Constructor
+	 * <br>
+	 * Bivariate Copula c will be optimized
+	 * by weighted MLE to fit between a and b.
+	 * 
+	 * @param c Copula to be optimized via MLE.
+	 * @param a An observation array.
+	 * @param b Another observation array.
+	 * @param w Observation weights, null for unit weights.
+	 */
+	public CopulaMLE(Copula c, double[] a, double[] b, double[] w){
 		this.c = c;
 		this.a = a;
 		this.b = b;
+		this.w = w;
 	}
 
 	@Override
@@ -39,7 +56,7 @@ public class CopulaMLE extends Optimization {
 		c.setParams(params);
 		
 		// Using negative value because it's a minimizing function
-		double out = -VineUtils.logLikelihood(c, a, b);
+		double out = -VineUtils.logLikelihood(c, a, b, w);
 		
 		if(Double.isNaN(out) || Math.abs(out) == Double.POSITIVE_INFINITY){
 			return Math.pow(10, 100);
@@ -99,6 +99,23 @@ public class CopulaRotation extends AbstractCopula{
 		return t;
 	}
 
+	@Override
+	public void tauInverse(double tau) {
+		if(m != Mode.ROT180) tau = -tau;
+		c.tauInverse(tau);
+		
+		double[] pars = c.getParams();
+		if(m != Mode.ROT180) pars = negate(pars);
+		super.setParams(pars);
+	}
+	
+	@Override
+	public double[] tauRange() {
+		double[] range = c.tauRange();
+		if(m != Mode.ROT180) range = new double[]{-range[1], -range[0]};
+		return range;
+	}
+
 	@Override
 	public String name() {
 		String name = c.name();
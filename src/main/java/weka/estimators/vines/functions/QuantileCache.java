@@ -0,0 +1,170 @@
+package weka.estimators.vines.functions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import umontreal.ssj.probdist.NormalDist;
+import weka.estimators.vines.VineUtils;
+
+/**
+ * This class caches the quantile transforms of an observation array.
+ * <br>
+ * The elliptical copulae evaluate their functions on the normal or
+ * Student t quantiles of the observations. Those only depend on the data
+ * and the degrees of freedom, so they are computed once per array and
+ * reused over the MLE iterations.
+ * <br>
+ * The cache is bound to one observation array at a time and keeps the
+ * quantiles of the most recently used degrees of freedom. Non-integer
+ * degrees of freedom are interpolated between grid points, see
+ * student(data, k). The array is
+ * identified by reference, so it must not be modified while in use.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class QuantileCache {
+	private static final int MAX_ENTRIES = 8;
+	private static final double maxStep = 1;
+	private static final double GRID = 0.125;
+	private double[] data;
+	private LinkedHashMap<Double, double[]> quantiles;
+
+	/**
+	 * Constructor
+	 */
+	public QuantileCache(){
+		quantiles = new LinkedHashMap<Double, double[]>(8, 0.75f, true){
+			private static final long serialVersionUID = 2950519311745329112L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Double, double[]> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+	}
+
+	/**
+	 * Get the Student t quantiles of the data.
+	 * <br>
+	 * The quantiles are computed on a grid of degrees of freedom. Between
+	 * the grid points, the logarithms of the absolute quantiles are
+	 * interpolated quadratically. So the small steps of the MLE and the
+	 * numerical derivatives in the degrees of freedom reuse the cached grid
+	 * points, instead of computing the quantiles of every step. Integer
+	 * degrees of freedom are grid points.
+	 *
+	 * @param data an observation array.
+	 * @param k Student t kernel of the requested degrees of freedom.
+	 * @return the Student t quantiles of the laplace corrected data.
+	 */
+	public double[] student(double[] data, StudentKernel k){
+		double v = k.getDegreesOfFreedom();
+		double lv = Math.floor(v/GRID)*GRID;
+		if(lv == v){
+			return student(data, v);
+		}
+
+		double[] q0 = student(data, lv);
+		double[] q1 = student(data, lv+GRID);
+		double[] q2 = student(data, lv+2*GRID);
+
+		// Lagrange weights of the nodes 0, 1, 2 at t
+		double t = (v-lv)/GRID;
+		double w0 = (t-1)*(t-2)/2;
+		double w1 = -t*(t-2);
+		double w2 = t*(t-1)/2;
+
+		double[] q = new double[data.length];
+		for(int i=0; i<q.length; i++){
+			if(q0[i] == 0){
+				continue;
+			}
+			double y = w0*Math.log(Math.abs(q0[i]))
+					+ w1*Math.log(Math.abs(q1[i]))
+					+ w2*Math.log(Math.abs(q2[i]));
+			q[i] = Math.copySign(Math.exp(y), q0[i]);
+		}
+		return q;
+	}
+
+	/**
+	 * Get the Student t quantiles of the data for a grid point.
+	 * <br>
+	 * If the degrees of freedom are not cached yet, the quantiles of a
+	 * nearby cached degree of freedom serve as start values for Newton's
+	 * method.
+	 *
+	 * @param data an observation array.
+	 * @param v degrees of freedom.
+	 * @return the Student t quantiles of the laplace corrected data.
+	 */
+	private double[] student(double[] data, double v){
+		double[] q = lookup(data, v);
+
+		if(q == null){
+			StudentKernel k = new StudentKernel(v);
+
+			// use the quantiles of the nearest cached degree of freedom
+			double[] start = null;
+			double dist = maxStep;
+			if(!k.isInteger()){
+				for(Map.Entry<Double, double[]> e : quantiles.entrySet()){
+					if(Math.abs(e.getKey()-v) <= dist){
+						dist = Math.abs(e.getKey()-v);
+						start = e.getValue();
+					}
+				}
+			}
+
+			q = new double[data.length];
+			for(int i=0; i<data.length; i++){
+				double x = VineUtils.laplaceCorrection(data[i]);
+				if(start == null){
+					q[i] = k.inverseF(x);
+				}else{
+					q[i] = k.inverseF(x, start[i]);
+				}
+			}
+			quantiles.put(v, q);
+		}
+		return q;
+	}
+
+	/**
+	 * Get the standard normal quantiles of the data.
+	 *
+	 * @param data an observation array.
+	 * @return the normal quantiles of the laplace corrected data.
+	 */
+	public double[] normal(double[] data){
+		double v = Double.POSITIVE_INFINITY;
+		double[] q = lookup(data, v);
+
+		if(q == null){
+			q = new double[data.length];
+			for(int i=0; i<data.length; i++){
+				double x = VineUtils.laplaceCorrection(data[i]);
+				q[i] = NormalDist.inverseF01(x);
+			}
+			quantiles.put(v, q);
+		}
+		return q;
+	}
+
+	/**
+	 * Looks up cached quantiles.
+	 *
+	 * @param data an observation array.
+	 * @param v degrees of freedom, infinity for the normal distribution.
+	 * @return the cached quantiles or null.
+	 */
+	private double[] lookup(double[] data, double v){
+		if(this.data != data){
+			// bound to a new observation array
+			this.data = data;
+			quantiles.clear();
+		}
+		return quantiles.get(v);
+	}
+}
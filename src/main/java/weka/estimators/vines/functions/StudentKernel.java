@@ -0,0 +1,241 @@
+package weka.estimators.vines.functions;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.math3.special.Beta;
+import org.apache.commons.math3.special.Gamma;
+
+import umontreal.ssj.probdist.StudentDist;
+
+/**
+ * This class represents the univariate Student t distribution
+ * for real valued degrees of freedom.
+ * <br>
+ * The gamma function terms of the density are computed once per
+ * degree of freedom, the distribution function is based on the
+ * regularized incomplete beta function.
+ * <br>
+ * Quantiles are taken from SSJ for integer degrees of freedom and refined
+ * by Newton's method otherwise.
+ * <br>
+ * For the repeated evaluation of a fitted kernel, quantile(u) interpolates
+ * the quantiles of non-integer degrees of freedom on a table over the
+ * logit of u. The table nodes are computed on first use and kept with the
+ * kernel.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class StudentKernel implements Serializable {
+	private static final long serialVersionUID = -3496722154858349104L;
+	private static final double eps = Math.pow(10, -12);
+	private static final int maxIter = 50;
+	/** step and range of the quantile table on the logit scale */
+	private static final double STEP = 1.0/32;
+	private static final double RANGE = 9.25;
+	private static final int NODES = 2*(int) Math.round(RANGE/STEP)+1;
+	private final double v;
+	private final double logC;
+	private transient volatile AtomicLongArray table;
+	private transient AtomicLongArray slopes;
+	private transient AtomicLong exact;
+
+	/**
+	 * Constructor
+	 *
+	 * @param v degrees of freedom, v &gt; 0.
+	 */
+	public StudentKernel(double v){
+		this.v = v;
+		logC = Gamma.logGamma((v+1)/2) - Gamma.logGamma(v/2)
+				- 0.5*Math.log(v*Math.PI);
+	}
+
+	/**
+	 * Get the degrees of freedom.
+	 * @return the degrees of freedom.
+	 */
+	public double getDegreesOfFreedom(){
+		return v;
+	}
+
+	/**
+	 * Information if the degrees of freedom are an integer.
+	 * @return boolean if the degrees of freedom are an integer.
+	 */
+	public boolean isInteger(){
+		return v == Math.rint(v);
+	}
+
+	/**
+	 * The log-density function.
+	 * @param t input value.
+	 * @return returns log f(t).
+	 */
+	public double logDensity(double t){
+		return logC - (v+1)/2*Math.log1p(t*t/v);
+	}
+
+	/**
+	 * The density function.
+	 * @param t input value.
+	 * @return returns f(t).
+	 */
+	public double density(double t){
+		return Math.exp(logDensity(t));
+	}
+
+	/**
+	 * The cumulative distribution function.
+	 * @param t input value.
+	 * @return returns F(t).
+	 */
+	public double cdf(double t){
+		if(t == 0) return 0.5;
+
+		double tail = 0.5*Beta.regularizedBeta(v/(v+t*t), v/2, 0.5);
+		return t > 0 ? 1-tail : tail;
+	}
+
+	/**
+	 * The quantile function for repeated evaluations.
+	 * <br>
+	 * For non-integer degrees of freedom, the quantile is interpolated by
+	 * cubic Hermite polynomials in z = log(u/(1-u)), using the exact
+	 * quantiles and their derivatives on table nodes of step 1/32. Outside
+	 * of |z| &lt;= 9.25 the quantile is computed exactly. Integer degrees of
+	 * freedom are computed exactly by SSJ.
+	 * @param u probability, 0 &lt; u &lt; 1.
+	 * @return returns the inverse of F at u.
+	 */
+	public double quantile(double u){
+		if(isInteger()) return StudentDist.inverseF((int) v, u);
+
+		double z = Math.log(u/(1-u));
+		double pos = (z+RANGE)/STEP;
+		int i = (int) Math.floor(pos);
+		if(!(i >= 0 && i < NODES-1)) return inverseF(u);
+
+		if(table == null) initTable();
+		double t0 = node(i), t1 = node(i+1);
+		double d0 = Double.longBitsToDouble(slopes.get(i))*STEP;
+		double d1 = Double.longBitsToDouble(slopes.get(i+1))*STEP;
+
+		// cubic Hermite basis on [0, 1]
+		double s = pos-i;
+		double s2 = s*s, s3 = s2*s;
+		return (2*s3-3*s2+1)*t0 + (s3-2*s2+s)*d0
+				+ (-2*s3+3*s2)*t1 + (s3-s2)*d1;
+	}
+
+	/**
+	 * Get the number of exact quantile computations of the quantile table.
+	 * @return the number of computed table nodes.
+	 */
+	public long getExactQuantiles(){
+		return exact == null ? 0 : exact.get();
+	}
+
+	/**
+	 * Creates the empty quantile table.
+	 */
+	private synchronized void initTable(){
+		if(table != null) return;
+		slopes = new AtomicLongArray(NODES);
+		exact = new AtomicLong();
+		table = new AtomicLongArray(NODES);
+	}
+
+	/**
+	 * Get the quantile of a table node, computing it on first use.
+	 * <br>
+	 * The quantile is stored before its derivative, and a node is
+	 * complete once the derivative is set. Concurrent callers may compute
+	 * the same node, they store the same values.
+	 * @param i node index.
+	 * @return the quantile at the node.
+	 */
+	private double node(int i){
+		long d = slopes.get(i);
+		if(d != 0) return Double.longBitsToDouble(table.get(i));
+
+		double z = i*STEP-RANGE;
+		double u = 1/(1+Math.exp(-z));
+		double t = Math.abs(z) < STEP/2 ? 0 : inverseF(u);
+		exact.incrementAndGet();
+
+		// dt/dz = u(1-u)/f(t), never 0
+		table.set(i, Double.doubleToLongBits(t));
+		slopes.set(i, Double.doubleToLongBits(u*(1-u)/density(t)));
+		return t;
+	}
+
+	/**
+	 * The quantile function.
+	 * @param u probability, 0 &lt; u &lt; 1.
+	 * @return returns the inverse of F at u.
+	 */
+	public double inverseF(double u){
+		if(isInteger()) return StudentDist.inverseF((int) v, u);
+
+		// the quantile lies between the neighbouring integer quantiles
+		int lv = Math.max(1, (int) Math.floor(v));
+		double lq = StudentDist.inverseF(lv, u);
+		double uq = StudentDist.inverseF(lv+1, u);
+		double start = lq + (v-lv)*(uq-lq);
+
+		return newton(u, start, Math.min(lq, uq), Math.max(lq, uq));
+	}
+
+	/**
+	 * The quantile function, refined by Newton's method.
+	 * <br>
+	 * The start value is usually the quantile of a nearby
+	 * degree of freedom. If the iteration fails, the quantile
+	 * is computed from scratch.
+	 * @param u probability, 0 &lt; u &lt; 1.
+	 * @param start start value for the iteration.
+	 * @return returns the inverse of F at u.
+	 */
+	public double inverseF(double u, double start){
+		double t = newton(u, start, Double.NEGATIVE_INFINITY,
+				Double.POSITIVE_INFINITY);
+		if(Double.isNaN(t)) return inverseF(u);
+		return t;
+	}
+
+	/**
+	 * Newton's method for the quantile function, safeguarded by bisection
+	 * as long as the bracket [lb, ub] is finite.
+	 * @param u probability, 0 &lt; u &lt; 1.
+	 * @param t start value.
+	 * @param lb lower bound of the quantile.
+	 * @param ub upper bound of the quantile.
+	 * @return returns the inverse of F at u or NaN if the iteration fails.
+	 */
+	private double newton(double u, double t, double lb, double ub){
+		boolean bracket = !Double.isInfinite(lb) && !Double.isInfinite(ub);
+		if(bracket && ub-lb <= eps) return lb;
+
+		for(int i=0; i<maxIter; i++){
+			double f = cdf(t)-u;
+			if(f > 0){
+				ub = Math.min(ub, t);
+			}else{
+				lb = Math.max(lb, t);
+			}
+
+			double next = t - f/density(t);
+			if(!(next >= lb && next <= ub)){
+				// left the bracket or not finite
+				if(!bracket) return Double.NaN;
+				next = (lb+ub)/2;
+			}
+
+			if(Math.abs(next-t) <= eps*(1+Math.abs(next))) return next;
+			t = next;
+		}
+		return bracket ? t : Double.NaN;
+	}
+}
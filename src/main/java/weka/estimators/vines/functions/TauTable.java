@@ -0,0 +1,229 @@
+package weka.estimators.vines.functions;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.analysis.UnivariateFunction;
+
+/**
+ * This class is an interpolation table for the relation between
+ * a copula parameter and Kendall's tau.
+ * <br>
+ * The tau function is tabulated once on a parameter grid.
+ * Both directions, tau(parameter) and its inverse, are interpolated by
+ * monotone cubic Hermite splines (Fritsch and Carlson, 1980), so the
+ * tau inversion does not need any bisection.
+ * <br>
+ * The table is immutable after construction and can be shared.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class TauTable {
+	private static final double eps = Math.pow(10, -12);
+	private final Spline tau;
+	private final Spline inverse;
+
+	/**
+	 * Constructor
+	 * <br>
+	 * The tau function needs to be monotone on the grid.
+	 *
+	 * @param f tau as function of the copula parameter.
+	 * @param x increasing parameter grid, see linearGrid and logGrid.
+	 */
+	public TauTable(UnivariateFunction f, double[] x){
+		int n = x.length-1;
+		double lb = x[0];
+		double ub = x[n];
+
+		double[] y = new double[n+1];
+		double[] dy = new double[n+1];
+
+		for(int i=0; i<=n; i++){
+			y[i] = f.value(x[i]);
+
+			// step for the numerical derivatives
+			double h = Math.min(x[Math.min(i+1, n)]-x[Math.max(i-1, 0)],
+					Math.pow(10, -3))/10;
+			double l = Math.max(lb, x[i]-h);
+			double u = Math.min(ub, x[i]+h);
+			dy[i] = (f.value(u)-f.value(l))/(u-l);
+		}
+
+		tau = new Spline(x, y, dy);
+
+		if(y[0] > y[n]){
+			x = reverse(x);
+			y = reverse(y);
+			dy = reverse(dy);
+		}
+
+		// the inverse uses the nodes where tau is strictly increasing
+		double[] ix = new double[n+1];
+		double[] iy = new double[n+1];
+		double[] idy = new double[n+1];
+		int k = 0;
+		for(int i=0; i<=n; i++){
+			if(k > 0 && !(y[i]-ix[k-1] > eps)) continue;
+			ix[k] = y[i];
+			iy[k] = x[i];
+			idy[k] = dy[i] == 0 ? 0 : 1/dy[i];
+			if(Double.isInfinite(idy[k]) || Double.isNaN(idy[k])) idy[k] = 0;
+			k++;
+		}
+
+		inverse = new Spline(Arrays.copyOf(ix, k), Arrays.copyOf(iy, k),
+				Arrays.copyOf(idy, k));
+	}
+
+	/**
+	 * Equidistant parameter grid.
+	 *
+	 * @param lb lower parameter bound.
+	 * @param ub upper parameter bound.
+	 * @param n number of grid intervals.
+	 * @return the grid.
+	 */
+	public static double[] linearGrid(double lb, double ub, int n){
+		double[] x = new double[n+1];
+		for(int i=0; i<=n; i++){
+			x[i] = i < n ? lb + (ub-lb)*i/n : ub;
+		}
+		return x;
+	}
+
+	/**
+	 * Logarithmic parameter grid, it is dense near the lower bound.
+	 *
+	 * @param lb lower parameter bound, lb &gt; 0.
+	 * @param ub upper parameter bound.
+	 * @param n number of grid intervals.
+	 * @return the grid.
+	 */
+	public static double[] logGrid(double lb, double ub, int n){
+		double[] x = linearGrid(Math.log(lb), Math.log(ub), n);
+		for(int i=0; i<=n; i++){
+			x[i] = i == 0 ? lb : i == n ? ub : Math.exp(x[i]);
+		}
+		return x;
+	}
+
+	/**
+	 * Interpolated tau for a copula parameter.
+	 *
+	 * @param par the copula parameter.
+	 * @return the Kendall's tau value.
+	 */
+	public double tau(double par){
+		return tau.value(par);
+	}
+
+	/**
+	 * Interpolated copula parameter for a tau value.
+	 * <br>
+	 * Values outside the attainable tau range are mapped to the
+	 * parameter bounds.
+	 *
+	 * @param tau Kendall's tau value.
+	 * @return the copula parameter.
+	 */
+	public double parameter(double tau){
+		return inverse.value(tau);
+	}
+
+	/**
+	 * Get the attainable tau range.
+	 *
+	 * @return the tau range as [min, max].
+	 */
+	public double[] tauRange(){
+		return new double[]{inverse.x[0], inverse.x[inverse.x.length-1]};
+	}
+
+	/**
+	 * Reverses an array.
+	 *
+	 * @param a the array.
+	 * @return reversed copy of a.
+	 */
+	private static double[] reverse(double[] a){
+		double[] out = new double[a.length];
+		for(int i=0; i<a.length; i++) out[i] = a[a.length-1-i];
+		return out;
+	}
+
+	/**
+	 * Monotone cubic Hermite spline on increasing nodes.
+	 */
+	private static class Spline {
+		final double[] x;
+		final double[] y;
+		final double[] m;
+
+		/**
+		 * Constructor
+		 * <br>
+		 * The slopes are limited such that the spline
+		 * is monotone between the nodes.
+		 *
+		 * @param x increasing nodes.
+		 * @param y values at the nodes.
+		 * @param dy derivatives at the nodes.
+		 */
+		Spline(double[] x, double[] y, double[] dy){
+			this.x = x;
+			this.y = y;
+			this.m = dy.clone();
+
+			for(int i=0; i<x.length-1; i++){
+				double d = (y[i+1]-y[i])/(x[i+1]-x[i]);
+				if(d == 0){
+					m[i] = 0;
+					m[i+1] = 0;
+					continue;
+				}
+				if(m[i]/d < 0) m[i] = 0;
+				if(m[i+1]/d < 0) m[i+1] = 0;
+
+				double a = m[i]/d;
+				double b = m[i+1]/d;
+				double s = a*a+b*b;
+				if(s > 9){
+					double t = 3/Math.sqrt(s);
+					m[i] = t*a*d;
+					m[i+1] = t*b*d;
+				}
+			}
+		}
+
+		/**
+		 * Evaluates the spline, values outside the nodes are clamped.
+		 *
+		 * @param v the input value.
+		 * @return the interpolated value.
+		 */
+		double value(double v){
+			int n = x.length-1;
+			if(!(v > x[0])) return y[0];
+			if(v >= x[n]) return y[n];
+
+			// binary search for the interval
+			int lo = 0, hi = n;
+			while(hi-lo > 1){
+				int mid = (lo+hi) >>> 1;
+				if(x[mid] <= v){
+					lo = mid;
+				}else{
+					hi = mid;
+				}
+			}
+
+			double h = x[hi]-x[lo];
+			double t = (v-x[lo])/h;
+			double t2 = t*t;
+			double t3 = t2*t;
+
+			return (2*t3-3*t2+1)*y[lo] + (t3-2*t2+t)*h*m[lo]
+					+ (-2*t3+3*t2)*y[hi] + (t3-t2)*h*m[hi];
+		}
+	}
+}
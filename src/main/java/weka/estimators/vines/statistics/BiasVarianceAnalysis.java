@@ -2,17 +2,34 @@ package weka.estimators.vines.statistics;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import weka.core.Instances;
 import weka.estimators.DensityEstimator;
 import weka.estimators.meta.Bagging;
+import weka.estimators.vines.FitCache;
 import weka.estimators.vines.RegularVine;
 import weka.estimators.vines.VineUtils;
 
 /**
  * This is a class for the Bias-Variance Analysis. <br>
  * It uses the AverageModel and the DataGenerator to estimate the error, bias
- * and variance.
+ * and variance. <br>
+ * The training sets are generated once and shared by all model
+ * configurations. The models are built and evaluated on the test set in
+ * parallel on numThreads threads. Every configuration is averaged and written
+ * by another task as soon as its models are built, the progress is printed
+ * by the submitting thread only. The RegularVine configurations share a FitCache, so the Kendall's
+ * tau values and copula fits, which several configurations compute on the
+ * same training set, are computed once.
  * 
  * @author Christian Lamberty (clamber@students.uni-mainz.de)
  */
@@ -22,6 +39,8 @@ public class BiasVarianceAnalysis {
 	int trainSize = 10000;
 	int testSize = 1000;
 	int iterations = 10;
+	int numThreads = Runtime.getRuntime().availableProcessors();
+	long seed = 1;
 	DataGenerator datGen;
 	DensityEstimator[] models;
 	BufferedWriter[] bf;
@@ -31,6 +50,7 @@ public class BiasVarianceAnalysis {
 	double[] variance;
 	double[] buildTimes;
 	RegularVine trueModel;
+	FitCache fitCache = new FitCache();
 
 	public static void main(String[] args) {
 		BiasVarianceAnalysis vs = new BiasVarianceAnalysis();
@@ -127,6 +147,33 @@ public class BiasVarianceAnalysis {
 	 * @throws Exception Exceptions thrown by the writers.
 	 */
 	public void statistics() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+		try {
+			openWriters();
+			run(pool);
+		} finally {
+			pool.shutdownNow();
+			fitCache.clear();
+			for (int k = 0; k < bf.length; k++) {
+				if (bf[k] != null) {
+					try {
+						bf[k].close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+					bf[k] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Opens the writers of the model configurations.
+	 * 
+	 * @throws Exception
+	 *             Exceptions thrown by the writers.
+	 */
+	private void openWriters() throws Exception {
 		bf[0] = new BufferedWriter(new FileWriter(savepath
 				+ "RVine_Kendall_Regular.txt"));
 		bf[1] = new BufferedWriter(new FileWriter(savepath
@@ -163,69 +210,231 @@ public class BiasVarianceAnalysis {
 				+ "Bagged_Mixed_Scattered.txt"));
 		bf[17] = new BufferedWriter(new FileWriter(savepath
 				+ "Bagged_Mixed_Threshold.txt"));
+	}
+
+	/**
+	 * Builds and evaluates the models of all configurations on a thread pool.
+	 * 
+	 * @param pool
+	 *            the thread pool.
+	 * @throws Exception
+	 *             Exceptions thrown by the builds or the writers.
+	 */
+	private void run(ExecutorService pool) throws Exception {
+		final Instances test = datGen.randomGenerate(testSize, seed);
 
-		Instances test = datGen.randomGenerate(testSize);
+		// the same training sets for all configurations
+		final Instances[] train = new Instances[iterations];
+		for (int i = 0; i < iterations; i++) {
+			train[i] = datGen.randomGenerate(trainSize, seed + 1 + i);
+		}
+		final double trueDensity = trueModel.logDensity(test);
 
+		Build[][] built = new Build[models.length][];
+		int[] pending = new int[models.length];
 		for (int k = 0; k < models.length; k++) {
-			// building all models
+			built[k] = new Build[iterations];
+			pending[k] = iterations;
+		}
+
+		CompletionService<Build> builds = new ExecutorCompletionService<Build>(
+				pool);
+		ArrayList<Future<Void>> evaluations = new ArrayList<Future<Void>>();
 
-			avgs[k] = new AverageModel();
+		// keep at most numThreads builds in flight, in configuration order
+		int total = models.length * iterations;
+		int submitted = 0;
+		for (; submitted < Math.min(numThreads, total); submitted++) {
+			builds.submit(buildTask(submitted / iterations, submitted
+					% iterations, train, test));
+		}
+
+		for (int done = 0; done < total; done++) {
+			Build b = get(builds.take());
+			if (submitted < total) {
+				builds.submit(buildTask(submitted / iterations, submitted
+						% iterations, train, test));
+				submitted++;
+			}
+
+			System.out.println("Built " + models[b.k].toString() + " : "
+					+ b.i + " ~" + b.time);
+
+			built[b.k][b.i] = b;
+			buildTimes[b.k] += b.time;
+
+			if (--pending[b.k] == 0) {
+				evaluations.add(pool.submit(evaluationTask(b.k, built[b.k],
+						test, trueDensity)));
+				built[b.k] = null;
+			}
+		}
+
+		for (Future<Void> f : evaluations) {
+			get(f);
+		}
+	}
+
+	/**
+	 * Waits for a task and rethrows its exception.
+	 * 
+	 * @param f
+	 *            the future of the task.
+	 * @return returns the result of the task.
+	 * @throws Exception
+	 *             the exception thrown by the task.
+	 */
+	private static <T> T get(Future<T> f) throws Exception {
+		try {
+			return f.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
 
-			for (int i = 0; i < iterations; i++) {
-				Instances train = datGen.randomGenerate(trainSize);
-				DensityEstimator m = models[k].getClass().newInstance();
+	/**
+	 * Creates the task to build a model on a training set and to evaluate it
+	 * on the test set.
+	 * 
+	 * @param k
+	 *            the index of the model configuration.
+	 * @param i
+	 *            the iteration and index of the training set.
+	 * @param train
+	 *            the training sets.
+	 * @param test
+	 *            the test set.
+	 * @return returns the build task.
+	 */
+	private Callable<Build> buildTask(final int k, final int i,
+			final Instances[] train, final Instances test) {
+		return new Callable<Build>() {
+			@Override
+			public Build call() throws Exception {
+				DensityEstimator m = models[k].getClass()
+						.getDeclaredConstructor().newInstance();
 
 				// parse options
 				m.setOptions(models[k].getOptions());
-
-				System.out.println("Building " + models[k].toString() + " : "
-						+ i);
+				// only plain RVines get the cache, Bagging copies its members
+				// by serialization, which drops the transient cache field
+				if (m instanceof RegularVine) {
+					((RegularVine) m).setFitCache(fitCache);
+				}
 
 				double begin = System.currentTimeMillis();
-				m.buildEstimator(train);
+				m.buildEstimator(train[i]);
 				double time = System.currentTimeMillis() - begin;
 
-				System.out.println("done ~" + time);
-
-				buildTimes[k] += time;
-
-				avgs[k].addModel(m, m.logDensity(train));
+				return new Build(k, i, m, m.logDensity(train[i]), time,
+						VineUtils.KullbackLeiblerDivergenceLog(trueModel, m,
+								test), m.logDensity(test));
 			}
+		};
+	}
 
-			System.out.println("Evaluating...");
-			// pHat is estimated densities
-
-			for (int i = 0; i < iterations; i++) {
-				double err = VineUtils.KullbackLeiblerDivergenceLog(trueModel,
-						avgs[k].getModel(i), test);
-				error[k] += err;
-				variance[k] += VineUtils.KullbackLeiblerDivergenceLog(avgs[k],
-						avgs[k].getModel(i), test);
-				// Write Output
-				bf[k].write("Density: " + avgs[k].getModel(i).logDensity(test)
-						+ ", KLD: " + err + ", True: "
-						+ trueModel.logDensity(test) + "\n");
+	/**
+	 * Creates the task to evaluate the models of a configuration and to write
+	 * the results.
+	 * 
+	 * @param k
+	 *            the index of the model configuration.
+	 * @param built
+	 *            the builds in iteration order.
+	 * @param test
+	 *            the test set.
+	 * @param trueDensity
+	 *            the log-likelihood of the true model on the test set.
+	 * @return returns the evaluation task.
+	 */
+	private Callable<Void> evaluationTask(final int k, final Build[] built,
+			final Instances test, final double trueDensity) {
+		return new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				evaluate(k, built, test, trueDensity);
+				return null;
 			}
-			error[k] /= iterations;
-			variance[k] /= iterations;
-			buildTimes[k] /= iterations;
-
-			bias[k] = VineUtils.KullbackLeiblerDivergenceLog(trueModel,
-					avgs[k], test);
-			bf[k].write("Error: " + error[k] + ", Bias: " + bias[k]
-					+ ", Variance: " + variance[k] + ", Variance2: "
-					+ (error[k] - bias[k]) + ", Avg.Time: " + buildTimes[k]
-					+ "\n");
-
-			// Output
-			System.out.println("Model: " + models[k].toString());
-			System.out.println("Error: " + error[k]);
-			System.out.println("Bias: " + bias[k]);
-			System.out.println("Variance: " + variance[k]);
-			System.out.println("Variance2: " + (error[k] - bias[k]));
-
-			avgs[k] = null;
-			bf[k].close();
+		};
+	}
+
+	/**
+	 * Evaluates the models of a configuration and writes the results.
+	 * 
+	 * @param k
+	 *            the index of the model configuration.
+	 * @param built
+	 *            the builds in iteration order.
+	 * @param test
+	 *            the test set.
+	 * @param trueDensity
+	 *            the log-likelihood of the true model on the test set.
+	 * @throws Exception
+	 *             Exceptions thrown by the writers.
+	 */
+	private void evaluate(int k, Build[] built, Instances test,
+			double trueDensity) throws Exception {
+		avgs[k] = new AverageModel();
+		for (int i = 0; i < iterations; i++) {
+			avgs[k].addModel(built[i].model, built[i].logLik);
+		}
+
+		// pHat is estimated densities
+
+		for (int i = 0; i < iterations; i++) {
+			error[k] += built[i].error;
+			variance[k] += VineUtils.KullbackLeiblerDivergenceLog(avgs[k],
+					avgs[k].getModel(i), test);
+			// Write Output
+			bf[k].write("Density: " + built[i].testLogLik + ", KLD: "
+					+ built[i].error + ", True: " + trueDensity + "\n");
+		}
+		error[k] /= iterations;
+		variance[k] /= iterations;
+		buildTimes[k] /= iterations;
+
+		bias[k] = VineUtils.KullbackLeiblerDivergenceLog(trueModel, avgs[k],
+				test);
+		bf[k].write("Error: " + error[k] + ", Bias: " + bias[k]
+				+ ", Variance: " + variance[k] + ", Variance2: "
+				+ (error[k] - bias[k]) + ", Avg.Time: " + buildTimes[k]
+				+ "\n");
+
+		// Output, in one piece as other configurations print in parallel
+		System.out.print("Model: " + models[k].toString() + "\n"
+				+ "Error: " + error[k] + "\n"
+				+ "Bias: " + bias[k] + "\n"
+				+ "Variance: " + variance[k] + "\n"
+				+ "Variance2: " + (error[k] - bias[k]) + "\n");
+
+		avgs[k] = null;
+		bf[k].close();
+	}
+
+	/**
+	 * The result of a model build.
+	 */
+	private static class Build {
+		final int k;
+		final int i;
+		final DensityEstimator model;
+		final double logLik;
+		final double time;
+		final double error;
+		final double testLogLik;
+
+		Build(int k, int i, DensityEstimator model, double logLik,
+				double time, double error, double testLogLik) {
+			this.k = k;
+			this.i = i;
+			this.model = model;
+			this.logLik = logLik;
+			this.time = time;
+			this.error = error;
+			this.testLogLik = testLogLik;
 		}
 	}
 }
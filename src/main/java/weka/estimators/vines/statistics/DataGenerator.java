@@ -1,10 +1,20 @@
 package weka.estimators.vines.statistics;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import weka.core.Attribute;
+import weka.core.DenseInstance;
 import weka.core.Instance;
 import weka.core.Instances;
 import weka.estimators.vines.Edge;
@@ -18,10 +28,26 @@ import weka.estimators.vines.copulas.Copula;
  * @author Christian Lamberty (clamber@students.uni-mainz.de)
  */
 public class DataGenerator {
+	/** Number of sample batches, which are buffered while streaming */
+	private static final int QUEUE_SIZE = 4;
+	/** Number of chunks per sample batch */
+	private static final int BATCH_CHUNKS = 16;
+	/** Size of the binary format header in bytes */
+	private static final int BINARY_HEADER = 12;
 	Instances data;
 	RegularVine rvine;
 	private boolean dep = true;
 	
+	/**
+	 * This is an enum class for the export formats. ARFF - Weka's ARFF
+	 * format. CSV - comma separated values with a header line. BINARY - the
+	 * number of rows (long) and attributes (int), followed by the columns as
+	 * doubles, big-endian.
+	 */
+	public enum Format {
+		ARFF, CSV, BINARY
+	}
+	
 	public DataGenerator(){
 		this("./src/daxreturns.arff");
 	}
@@ -95,6 +121,201 @@ public class DataGenerator {
 		return out;
 	}
 	
+	/**
+	 * Method to generate a new dataset reproducibly.
+	 * <br>
+	 * The samples are created in parallel by the bulk sampling method of
+	 * the true model, the result only depends on the seed.
+	 * 
+	 * @param dataSize the desired size of the generated dataset.
+	 * @param seed the random seed.
+	 * @return the generated dataset.
+	 */
+	public Instances randomGenerate(int dataSize, long seed){
+		Instances out = new Instances("Generated", attributes(), dataSize);
+		
+		for(double[] x : rvine.createRandomSamples(dataSize, seed)){
+			out.add(new DenseInstance(1.0, x));
+		}
+		
+		return out;
+	}
+	
+	/**
+	 * Method to generate a new dataset directly into a file.
+	 * <br>
+	 * The samples are not collected in memory. A producer thread creates
+	 * them batch by batch with the bulk sampling method of the true model,
+	 * while the calling thread writes the previous batches through a file
+	 * channel. At most QUEUE_SIZE batches are buffered.
+	 * <br>
+	 * The samples equal randomGenerate(dataSize, seed).
+	 * 
+	 * @param dataSize the desired size of the generated dataset.
+	 * @param seed the random seed.
+	 * @param file the output file.
+	 * @param format the output format.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void streamGenerate(final long dataSize, long seed, File file,
+			Format format) throws IOException {
+		final BlockingQueue<double[][]> queue =
+				new ArrayBlockingQueue<double[][]>(QUEUE_SIZE);
+		final double[][] end = new double[0][];
+		final SplittableRandom root = new SplittableRandom(seed);
+		final Exception[] error = new Exception[1];
+		
+		Thread producer = new Thread(new Runnable(){
+			public void run() {
+				try {
+					long done = 0;
+					int batch = RegularVine.CHUNK_SIZE*BATCH_CHUNKS;
+					while(done < dataSize){
+						int size = (int) Math.min(batch, dataSize-done);
+						queue.put(rvine.createRandomSamples(size, root));
+						done += size;
+					}
+				} catch (InterruptedException e) {
+					return;
+				} catch (Exception e) {
+					error[0] = e;
+				}
+				try {
+					queue.put(end);
+				} catch (InterruptedException e) {
+					// consumer is gone
+				}
+			}
+		}, "DataGenerator");
+		producer.setDaemon(true);
+		
+		FileChannel out = FileChannel.open(file.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+			int n = data.numAttributes();
+			
+			// header
+			if(format == Format.ARFF){
+				writeText(out, buf, new Instances("Generated",
+						attributes(), 0).toString());
+			}
+			if(format == Format.CSV){
+				StringBuilder sb = new StringBuilder();
+				for(int i=0; i<n; i++){
+					if(i > 0) sb.append(',');
+					sb.append(data.attribute(i).name());
+				}
+				writeText(out, buf, sb.append('\n').toString());
+			}
+			if(format == Format.BINARY){
+				buf.clear();
+				buf.putLong(dataSize);
+				buf.putInt(n);
+				buf.flip();
+				while(buf.hasRemaining()) out.write(buf, 0);
+			}
+			
+			producer.start();
+			
+			long row = 0;
+			while(true){
+				double[][] x = queue.take();
+				if(x == end) break;
+				
+				if(format == Format.BINARY){
+					writeColumns(out, buf, x, row, dataSize);
+				}else{
+					StringBuilder sb = new StringBuilder();
+					for(double[] r : x){
+						for(int i=0; i<r.length; i++){
+							if(i > 0) sb.append(',');
+							sb.append(r[i]);
+						}
+						sb.append('\n');
+					}
+					writeText(out, buf, sb.toString());
+				}
+				row += x.length;
+			}
+			
+			if(error[0] != null){
+				throw new IOException("Sampling failed", error[0]);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while generating", e);
+		} finally {
+			producer.interrupt();
+			out.close();
+		}
+	}
+	
+	/**
+	 * Writes text to a file channel.
+	 * 
+	 * @param out the file channel.
+	 * @param buf the buffer to use.
+	 * @param text the text.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static void writeText(FileChannel out, ByteBuffer buf,
+			String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		int pos = 0;
+		while(pos < bytes.length){
+			buf.clear();
+			int len = Math.min(buf.remaining(), bytes.length-pos);
+			buf.put(bytes, pos, len);
+			buf.flip();
+			while(buf.hasRemaining()) out.write(buf);
+			pos += len;
+		}
+	}
+	
+	/**
+	 * Writes a batch of rows into the columns of the binary format.
+	 * 
+	 * @param out the file channel.
+	 * @param buf the buffer to use.
+	 * @param x the batch of rows.
+	 * @param row the index of the first row of the batch.
+	 * @param rows the total number of rows.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static void writeColumns(FileChannel out, ByteBuffer buf,
+			double[][] x, long row, long rows) throws IOException {
+		int n = x.length == 0 ? 0 : x[0].length;
+		for(int i=0; i<n; i++){
+			long pos = BINARY_HEADER + (i*rows + row)*8;
+			int j = 0;
+			while(j < x.length){
+				buf.clear();
+				while(j < x.length && buf.remaining() >= 8){
+					buf.putDouble(x[j++][i]);
+				}
+				buf.flip();
+				while(buf.hasRemaining()){
+					pos += out.write(buf, pos);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the attributes of the base dataset.
+	 * @return the attribute list.
+	 */
+	private ArrayList<Attribute> attributes(){
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		
+		for(int i=0; i<data.numAttributes(); i++){
+			attributes.add(data.attribute(i));
+		}
+		return attributes;
+	}
+	
 	/**
 	 * Get the true RVine model.
 	 * @return true RVine model.
@@ -40,12 +40,14 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JProgressBar;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.JViewport;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.filechooser.FileFilter;
@@ -57,6 +59,10 @@ import weka.core.SerializedObject;
 import weka.core.Utils;
 import weka.core.converters.Loader;
 import weka.estimators.DensityEstimator;
+import weka.estimators.vines.BuildAdapter;
+import weka.estimators.vines.BuildListener;
+import weka.estimators.vines.BuildTimer;
+import weka.estimators.vines.Edge;
 import weka.estimators.vines.RegularVine;
 import weka.estimators.vines.copulas.Copula;
 import weka.estimators.vines.VineUtils;
@@ -134,6 +140,9 @@ public class RVinesPanel extends JPanel implements ExplorerPanel, LogHandler {
 	/** Click to stop a running rvine. */
 	protected JButton m_StopBut = new JButton("Stop");
 
+	/** Shows the progress of the running rvine construction. */
+	protected JProgressBar m_Progress = new JProgressBar();
+
 	/** The output area for rvine results. */
 	protected JTextArea m_OutText = new JTextArea(20, 40);
 
@@ -293,6 +302,12 @@ public class RVinesPanel extends JPanel implements ExplorerPanel, LogHandler {
 		ssButs.add(m_StopBut);
 
 		buttons.add(ssButs);
+		JPanel progress = new JPanel(new BorderLayout());
+		progress.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+		m_Progress.setStringPainted(true);
+		m_Progress.setString("");
+		progress.add(m_Progress, BorderLayout.CENTER);
+		buttons.add(progress);
 
 		JPanel historyHolder = new JPanel(new BorderLayout());
 		historyHolder.setBorder(BorderFactory
@@ -471,6 +486,10 @@ public class RVinesPanel extends JPanel implements ExplorerPanel, LogHandler {
 
 					// for timing
 					long trainTimeStart = 0, trainTimeElapsed = 0;
+					BuildTimer timer = new BuildTimer();
+					BuildListener progress = progressListener();
+					estimator.addBuildListener(timer);
+					estimator.addBuildListener(progress);
 					long testTimeStart = 0, testTimeElapsed = 0;
 
 					try {
@@ -587,6 +606,8 @@ public class RVinesPanel extends JPanel implements ExplorerPanel, LogHandler {
 									+ Utils.doubleToString(
 											trainTimeElapsed / 1000.0, 2)
 									+ " seconds\n\n");
+							outBuff.append("=== Build timings ===\n\n");
+							outBuff.append(timer.toString() + "\n");
 							m_History.updateResult(name);
 
 							m_Log.statusMessage("Evaluating on training data...");
@@ -626,6 +647,8 @@ public class RVinesPanel extends JPanel implements ExplorerPanel, LogHandler {
 									+ Utils.doubleToString(
 											trainTimeElapsed / 1000.0, 2)
 									+ " seconds\n\n");
+							outBuff.append("=== Build timings ===\n\n");
+							outBuff.append(timer.toString() + "\n");
 							m_History.updateResult(name);
 
 							m_Log.statusMessage("Evaluating on training data...");
@@ -663,6 +686,9 @@ public class RVinesPanel extends JPanel implements ExplorerPanel, LogHandler {
 
 					} catch (Exception e) {
 						e.printStackTrace();
+					} finally {
+						estimator.removeBuildListener(timer);
+						estimator.removeBuildListener(progress);
 					}
 
 					if (isInterrupted()) {
@@ -688,6 +714,99 @@ public class RVinesPanel extends JPanel implements ExplorerPanel, LogHandler {
 		}
 	}
 
+	/**
+	 * Creates a listener, which shows the progress of the RVine construction.
+	 * <br>
+	 * The progress bar counts the fitted edges, the status line shows the
+	 * current tree and phase.
+	 * 
+	 * @return the listener.
+	 */
+	protected BuildListener progressListener() {
+		return new BuildAdapter() {
+			private int trees, edges, fitted;
+
+			@Override
+			public void buildStarted(RegularVine vine, int trees) {
+				this.trees = trees;
+				edges = trees * (trees + 1) / 2;
+				fitted = 0;
+				progress(0, edges, "T1");
+			}
+
+			@Override
+			public void phaseStarted(int tree, Phase phase) {
+				String status;
+				switch (phase) {
+				case WEIGHTING:
+					status = "Weighting edges";
+					break;
+				case MST:
+					status = "Computing max. spanning tree";
+					break;
+				case FITTING:
+					status = "Fitting copulae";
+					break;
+				case MERGE:
+					status = "Merging nodes";
+					break;
+				case REFIT:
+					status = "Refitting copulae on full data";
+					break;
+				default:
+					status = "Building matrices";
+				}
+				if (tree >= 0) {
+					status = "Building T" + (tree + 1) + " of " + trees
+							+ ": " + status;
+				}
+				m_Log.statusMessage(status + "...");
+			}
+
+			@Override
+			public void edgeFitted(int tree, Edge e, Copula c,
+					double logLik) {
+				fitted++;
+				progress(fitted, edges, "T" + (tree + 1) + " - " + fitted
+						+ "/" + edges + " edges");
+			}
+
+			@Override
+			public void buildFinished(long elapsed) {
+				progress(edges, edges, "Built in "
+						+ Utils.doubleToString(elapsed / 1000.0, 2) + "s");
+			}
+
+			@Override
+			public void buildFailed(long elapsed) {
+				progress(fitted, edges, "Failed after "
+						+ Utils.doubleToString(elapsed / 1000.0, 2) + "s");
+			}
+		};
+	}
+
+	/**
+	 * Sets the progress bar from the building thread.
+	 * 
+	 * @param value
+	 *            the current value.
+	 * @param max
+	 *            the maximum value.
+	 * @param text
+	 *            the text on the progress bar.
+	 */
+	protected void progress(final int value, final int max,
+			final String text) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				m_Progress.setMaximum(Math.max(max, 1));
+				m_Progress.setValue(value);
+				m_Progress.setString(text);
+			}
+		});
+	}
+
 	/**
 	 * Stops the currently running rvine (if any).
 	 */
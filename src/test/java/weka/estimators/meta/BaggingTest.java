@@ -0,0 +1,121 @@
+package weka.estimators.meta;
+
+import java.util.Arrays;
+
+import junit.framework.*;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.estimators.DensityEstimator;
+import weka.estimators.vines.RegularVine;
+import weka.estimators.vines.RegularVineTest;
+
+/**
+ * This is a JUnit Test for the Bagging class.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class BaggingTest extends TestCase {
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public BaggingTest( String testName ){
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite(){
+        return new TestSuite( BaggingTest.class );
+    }
+
+    /**
+     * Test if the ensemble does not depend on the number of slots
+     */
+    public void testNumExecutionSlots() throws Exception{
+        Instances data = RegularVineTest.readData(200, 4);
+
+        Bagging serial = new Bagging();
+        serial.m_Estimators = new DensityEstimator[4];
+        serial.m_Seed = 3;
+        serial.buildEstimator(data);
+
+        Bagging parallel = new Bagging();
+        parallel.m_Estimators = new DensityEstimator[4];
+        parallel.m_Seed = 3;
+        parallel.setNumExecutionSlots(3);
+        parallel.buildEstimator(data);
+
+        for(int i=0; i<data.numInstances(); i++){
+            assertEquals(serial.logDensity(data.instance(i)),
+                    parallel.logDensity(data.instance(i)), 0);
+        }
+    }
+
+    /**
+     * Test if the copied bootstrap samples hold the drawn multiplicities
+     */
+    public void testBootstrapWeights() throws Exception{
+        Bagging bagging = new Bagging();
+        bagging.m_data = RegularVineTest.readData(200, 4);
+        bagging.m_BagSizePercent = 50;
+
+        for(int it=0; it<3; it++){
+            double[] counts = bagging.getBootstrapWeights(it);
+            Instances bag = bagging.getTrainingSet(it);
+
+            int k = 0;
+            for(int i=0; i<counts.length; i++){
+                for(int j=0; j<counts[i]; j++){
+                    Instance x = bag.instance(k++);
+                    assertEquals(1, x.weight(), 0);
+                    assertTrue(Arrays.equals(
+                            bagging.m_data.instance(i).toDoubleArray(),
+                            x.toDoubleArray()));
+                }
+            }
+            assertEquals(100, k);
+            assertEquals(100, bag.numInstances());
+        }
+    }
+
+    /**
+     * Test if the members built on bootstrap weights agree with
+     * the members built on copied bootstrap samples
+     */
+    public void testWeightedMembers() throws Exception{
+        Instances data = RegularVineTest.readData(200, 4);
+
+        Bagging weighted = new Bagging();
+        weighted.m_Estimators = new DensityEstimator[4];
+        weighted.buildEstimator(data);
+
+        Bagging copied = new Bagging(){
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void buildMember(int iteration) throws Exception {
+                m_Estimators[iteration].buildEstimator(
+                        getTrainingSet(iteration));
+            }
+        };
+        copied.m_Estimators = new DensityEstimator[4];
+        copied.buildEstimator(data);
+
+        // the same structure, the parameters up to the MLE tolerance
+        for(int k=0; k<4; k++){
+            RegularVine w = (RegularVine) weighted.m_Estimators[k];
+            RegularVine c = (RegularVine) copied.m_Estimators[k];
+            assertTrue(Arrays.deepEquals(c.getRVineMatrix(),
+                    w.getRVineMatrix()));
+            assertTrue(Arrays.deepEquals(c.getFamilyMatrix(),
+                    w.getFamilyMatrix()));
+        }
+        for(int i=0; i<data.numInstances(); i++){
+            assertEquals(copied.logDensity(data.instance(i)),
+                    weighted.logDensity(data.instance(i)), 1e-4);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package weka.estimators.vines;
+
+import junit.framework.*;
+import weka.core.SerializedObject;
+import weka.estimators.vines.copulas.Copula;
+import weka.estimators.vines.functions.CopulaRotation;
+
+/**
+ * This is a JUnit Test for the CopulaHandler class.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class CopulaHandlerTest extends TestCase {
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public CopulaHandlerTest( String testName ){
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite(){
+        return new TestSuite( CopulaHandlerTest.class );
+    }
+
+    /**
+     * Test if the selected copulae match the handler's families,
+     * also if the handler's order differs from the registry.
+     */
+    public void testSelectByFamily() throws Exception{
+        CopulaHandler ch = new CopulaHandler();
+
+        // reverse the handler's copulae
+        Copula[] cs = ch.copulas;
+        for(int i=0; i<cs.length/2; i++){
+            Copula tmp = cs[i];
+            cs[i] = cs[cs.length-1-i];
+            cs[cs.length-1-i] = tmp;
+        }
+        ch = (CopulaHandler) new SerializedObject(ch).getObject();
+
+        for(int i=0; i<cs.length; i++){
+            boolean[] sel = new boolean[cs.length];
+            sel[i] = true;
+            Copula[] out = ch.select(sel);
+
+            assertEquals(cs[i].rotations() ? 4 : 1, out.length);
+            assertEquals(cs[i].getClass(), out[0].getClass());
+            for(int j=1; j<out.length; j++){
+                assertTrue(out[j] instanceof CopulaRotation);
+            }
+        }
+    }
+}
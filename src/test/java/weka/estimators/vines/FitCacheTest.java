@@ -0,0 +1,129 @@
+package weka.estimators.vines;
+
+import java.util.Arrays;
+
+import junit.framework.*;
+import weka.core.Instances;
+import weka.estimators.vines.copulas.ClaytonCopula;
+import weka.estimators.vines.copulas.GaussCopula;
+
+/**
+ * This is a JUnit Test for the FitCache class.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class FitCacheTest extends TestCase {
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public FitCacheTest( String testName ){
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite(){
+        return new TestSuite( FitCacheTest.class );
+    }
+
+    /**
+     * Test if the cached results equal the computed ones
+     */
+    public void testCachedResults() throws Exception{
+        Instances data = RegularVineTest.readData(200, 2);
+        double[] a = data.attributeToDoubleArray(0);
+        double[] b = data.attributeToDoubleArray(1);
+        FitCache cache = new FitCache();
+
+        double tau = VineUtils.kendallsTau(a, b, null);
+        assertEquals(tau, cache.kendallsTau(a, b, null), 0);
+        // equal values in another array are a hit
+        assertEquals(tau, cache.kendallsTau(a.clone(), b.clone(), null), 0);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        GaussCopula c = new GaussCopula();
+        double ll = c.mle(a, b, null);
+        double par = c.getParams()[0];
+
+        assertEquals(ll, cache.mle(new GaussCopula(), a, b, null), 0);
+        GaussCopula d = new GaussCopula();
+        assertEquals(ll, cache.mle(d, a, b, null), 0);
+        assertEquals(par, d.getParams()[0], 0);
+        assertEquals(2, cache.getHits());
+
+        // another family, other weights and another start are misses
+        cache.mle(new ClaytonCopula(), a, b, null);
+        double[] w = new double[a.length];
+        Arrays.fill(w, 1);
+        cache.mle(new GaussCopula(), a, b, w);
+        cache.mle(new GaussCopula(), a, b, null, new double[]{0.1}, 5);
+        cache.mle(new GaussCopula(), a, b, null, new double[]{0.2}, 5);
+        assertEquals(2, cache.getHits());
+        assertEquals(6, cache.getMisses());
+        assertEquals(6, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+    }
+
+    /**
+     * Test if equal fingerprints of different arrays do not match
+     */
+    public void testFingerprintCollision(){
+        double[] a = new double[]{0.1, 0.2, 0.3};
+        double[] b = new double[]{0.3, 0.2, 0.1};
+        double[] c = new double[]{0.1, 0.2, 0.4};
+
+        FitCache.Key k1 = new FitCache.Key(null, a, b, null, 1, 2, 0);
+        FitCache.Key k2 = new FitCache.Key(null, c, b, null, 1, 2, 0);
+        FitCache.Key k3 = new FitCache.Key(null, a.clone(), b, null, 1, 2, 0);
+
+        assertEquals(k1.hashCode(), k2.hashCode());
+        assertFalse(k1.equals(k2));
+        assertTrue(k1.equals(k3));
+        assertFalse(k1.equals(new FitCache.Key("x", a, b, null, 1, 2, 0)));
+    }
+
+    /**
+     * Test if RegularVines sharing a cache are built like without cache
+     */
+    public void testSharedBuild() throws Exception{
+        Instances data = RegularVineTest.readData(200, 4);
+        FitCache cache = new FitCache();
+
+        RegularVine.TrainMethod[] methods = new RegularVine.TrainMethod[]{
+                RegularVine.TrainMethod.KENDALL,
+                RegularVine.TrainMethod.MIXED,
+                RegularVine.TrainMethod.CV};
+        for(RegularVine.TrainMethod m : methods){
+            RegularVine plain = new RegularVine();
+            plain.setTrainMethod(m);
+            plain.buildEstimator(data);
+
+            RegularVine cached = new RegularVine();
+            cached.setTrainMethod(m);
+            cached.setFitCache(cache);
+            cached.buildEstimator(data);
+
+            int[][] mp = plain.getRVineMatrix();
+            int[][] mc = cached.getRVineMatrix();
+            String[][] fp = plain.getFamilyMatrix();
+            String[][] fc = cached.getFamilyMatrix();
+            for(int i=0; i<mp.length; i++){
+                for(int j=0; j<mp.length; j++){
+                    assertEquals(mp[i][j], mc[i][j]);
+                    assertEquals(fp[i][j], fc[i][j]);
+                }
+            }
+            assertEquals(plain.logDensity(data), cached.logDensity(data), 0);
+        }
+
+        // the later configurations reuse the fits of the earlier ones
+        assertTrue(cache.getHits() > 0);
+    }
+}
@@ -0,0 +1,621 @@
+package weka.estimators.vines;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import junit.framework.*;
+import weka.core.Instances;
+import weka.core.SerializedObject;
+import weka.core.converters.ConverterUtils.DataSource;
+import weka.estimators.vines.copulas.ClaytonCopula;
+import weka.estimators.vines.copulas.Copula;
+import weka.estimators.vines.copulas.GaussCopula;
+import weka.estimators.vines.copulas.IndependenceCopula;
+import weka.estimators.vines.functions.CopulaRotation;
+
+/**
+ * This is a JUnit Test for the RegularVine class.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class RegularVineTest extends TestCase {
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public RegularVineTest( String testName ){
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite(){
+        return new TestSuite( RegularVineTest.class );
+    }
+
+    /**
+     * Reads the first rows and columns of the daxreturns data set.
+     *
+     * @param rows number of rows.
+     * @param cols number of columns.
+     * @return the data set.
+     */
+    public static Instances readData(int rows, int cols) throws Exception{
+        Instances data = DataSource.read("src/main/data/daxreturns.arff");
+        data = new Instances(data, 0, rows);
+        for(int i=data.numAttributes()-1; i>=cols; i--){
+            data.deleteAttributeAt(i);
+        }
+        return data;
+    }
+
+    /**
+     * Test the effective sample size of weighted observations
+     */
+    public void testEffectiveSize(){
+        assertEquals(5.0, RegularVine.effectiveSize(null, null, 5), 1e-12);
+
+        // the scale of the weights does not matter
+        double[] w = new double[]{0.2, 0.2, 0.2, 0.2, 0.2};
+        assertEquals(5.0, RegularVine.effectiveSize(w, null, 5), 1e-12);
+        w = new double[]{3, 3, 3, 3, 3};
+        assertEquals(5.0, RegularVine.effectiveSize(w, null, 5), 1e-12);
+
+        // unequal weights reduce the size
+        w = new double[]{1, 1, 1, 1, 4};
+        assertEquals(64.0/20, RegularVine.effectiveSize(w, null, 5), 1e-12);
+
+        // collapsed rows with unit weights count with their multiplicity
+        w = new double[]{3, 1, 2};
+        assertEquals(6.0, RegularVine.effectiveSize(w, w, 3), 1e-12);
+    }
+
+    /**
+     * Test if normalized weights keep the independence test working
+     */
+    public void testNormalizedWeights() throws Exception{
+        Instances data = readData(200, 4);
+
+        double[] unit = new double[data.numInstances()];
+        double[] normalized = new double[data.numInstances()];
+        for(int i=0; i<unit.length; i++){
+            unit[i] = 1;
+            normalized[i] = 1.0/unit.length;
+        }
+
+        RegularVine a = new RegularVine();
+        a.setIndepTest(true);
+        a.buildEstimator(data, unit);
+        RegularVine b = new RegularVine();
+        b.setIndepTest(true);
+        b.buildEstimator(data, normalized);
+
+        String[][] fa = a.getFamilyMatrix();
+        String[][] fb = b.getFamilyMatrix();
+        for(int i=0; i<fa.length; i++){
+            for(int j=0; j<fa[i].length; j++){
+                assertEquals(fa[i][j], fb[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Test if the warm start collapses duplicate rows and refits
+     * on the full data after the subsample
+     */
+    public void testWarmStartCompressSubsample() throws Exception{
+        Instances data = readData(300, 4);
+        RegularVine prior = new RegularVine();
+        prior.buildEstimator(data);
+
+        // duplicate the first 50 rows
+        Instances dup = new Instances(data);
+        for(int i=0; i<50; i++){
+            dup.add(data.instance(i));
+        }
+
+        RegularVine warm = new RegularVine();
+        warm.setCompress(true);
+        warm.setSubsample(100);
+        warm.setPriorTolerance(1);
+        warm.buildEstimator(dup, prior);
+
+        assertEquals(300, warm.data.numInstances());
+        assertEquals(350, warm.numObservations);
+        assertEquals(prior.getRVineMatrix().length,
+                warm.getRVineMatrix().length);
+        for(int i=0; i<prior.getRVineMatrix().length; i++){
+            for(int j=0; j<prior.getRVineMatrix().length; j++){
+                assertEquals(prior.getRVineMatrix()[i][j],
+                        warm.getRVineMatrix()[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Test if the kept edges of the warm start pass the independence test
+     */
+    public void testWarmStartIndependence() throws Exception{
+        Instances data = readData(300, 4);
+
+        // replace the last column by noise
+        Random r = new Random(1);
+        for(int i=0; i<data.numInstances(); i++){
+            data.instance(i).setValue(3, r.nextDouble());
+        }
+
+        RegularVine prior = new RegularVine();
+        prior.buildEstimator(data);
+        RegularVine warm = new RegularVine();
+        warm.setIndepTest(true);
+        warm.buildEstimator(data, prior);
+        RegularVine cold = new RegularVine();
+        cold.setIndepTest(true);
+        cold.buildEstimator(data);
+
+        HashMap<String, String> families = new HashMap<String, String>();
+        for(Edge e : cold.getRegularVine()[0].getUndirectedEdgeList()){
+            families.put(e.getLabel(), e.getCopula().name());
+        }
+
+        int indep = 0;
+        for(Edge e : warm.getRegularVine()[0].getUndirectedEdgeList()){
+            boolean w = e.getCopula() instanceof IndependenceCopula;
+            boolean c = families.get(e.getLabel()).equals(
+                    new IndependenceCopula().name());
+            assertEquals(c, w);
+            if(w) indep++;
+        }
+        assertTrue(indep > 0);
+    }
+
+    /**
+     * Test if the batch conditional sampling matches the sampling
+     * of a single row on the same uniform observations
+     */
+    public void testBatchSampling() throws Exception{
+        Instances data = readData(200, 4);
+        RegularVine rvine = new RegularVine();
+        rvine.buildEstimator(data);
+
+        double[] x = data.instance(0).toDoubleArray();
+        boolean[][] patterns = new boolean[][]{
+                {false, false, false, false},
+                {true, false, true, false},
+                {true, true, true, false},
+                {false, true, false, true}};
+
+        for(boolean[] given : patterns){
+            double[][][] batch = rvine.createSamples(new double[][]{x},
+                    new boolean[][]{given}, 1, 7);
+
+            // the single chunk draws the uniforms of the free variables
+            SplittableRandom r = new SplittableRandom(7).split();
+            double[] u = new double[x.length];
+            for(int i=0; i<u.length; i++){
+                if(!given[i]) u[i] = r.nextDouble();
+            }
+            double[] y = x.clone();
+            rvine.sample(y, given, u, new double[x.length][x.length]);
+
+            for(int i=0; i<x.length; i++){
+                if(given[i]) assertEquals(x[i], batch[0][0][i], 0);
+                assertEquals(y[i], batch[0][0][i], 1e-12);
+            }
+        }
+    }
+
+    /**
+     * Test if the bulk sampling does not depend on the number of threads
+     */
+    public void testParallelSampling() throws Exception{
+        Instances data = readData(200, 2);
+        RegularVine rvine = new RegularVine();
+        rvine.buildEstimator(data);
+
+        // more than one chunk
+        int count = RegularVine.CHUNK_SIZE + 100;
+        rvine.setNumExecutionSlots(1);
+        double[][] a = rvine.createRandomSamples(count, 3);
+        rvine.setNumExecutionSlots(3);
+        double[][] b = rvine.createRandomSamples(count, 3);
+
+        assertEquals(count, a.length);
+        for(int i=0; i<count; i++){
+            assertTrue(Arrays.equals(a[i], b[i]));
+        }
+    }
+
+    /**
+     * Test if the build on collapsed duplicate rows matches the build
+     * on the original rows
+     */
+    public void testCompress() throws Exception{
+        Instances data = readData(200, 4);
+        for(int i=0; i<50; i++){
+            data.add(data.instance(i));
+        }
+
+        RegularVine a = new RegularVine();
+        a.buildEstimator(data);
+        RegularVine b = new RegularVine();
+        b.setCompress(true);
+        b.buildEstimator(data);
+
+        assertEquals(200, b.data.numInstances());
+        assertEquals(a.numObservations, b.numObservations);
+
+        int[][] ma = a.getRVineMatrix();
+        int[][] mb = b.getRVineMatrix();
+        String[][] fa = a.getFamilyMatrix();
+        String[][] fb = b.getFamilyMatrix();
+        for(int i=0; i<ma.length; i++){
+            for(int j=0; j<ma.length; j++){
+                assertEquals(ma[i][j], mb[i][j]);
+                assertEquals(fa[i][j], fb[i][j]);
+            }
+        }
+        assertEquals(a.logDensity(data), b.logDensity(data),
+                1e-4*Math.abs(a.logDensity(data)));
+    }
+
+    /**
+     * Test if a full update step on a batch gives the parameters of a
+     * refit of the fixed structure on the batch
+     */
+    public void testUpdate() throws Exception{
+        Instances data = readData(400, 4);
+        Instances first = new Instances(data, 0, 200);
+        Instances batch = new Instances(data, 200, 200);
+
+        RegularVine prior = new RegularVine();
+        prior.buildEstimator(first);
+        RegularVine updated = (RegularVine) new SerializedObject(prior)
+                .getObject();
+        updated.setUpdateRate(1);
+        updated.setUpdateIterations(200);
+        updated.update(batch);
+
+        // the warm start keeps all edges and refits them on the batch
+        RegularVine refit = new RegularVine();
+        refit.setPriorTolerance(1);
+        refit.buildEstimator(batch, prior);
+
+        assertEquals(400, updated.numObservations);
+        String[][][] pu = updated.getParMatrices();
+        String[][][] pr = refit.getParMatrices();
+        String[][] fu = updated.getFamilyMatrix();
+        String[][] fr = refit.getFamilyMatrix();
+        for(int i=0; i<fu.length; i++){
+            for(int j=0; j<fu.length; j++){
+                assertEquals(fr[i][j], fu[i][j]);
+                for(int k=0; k<pu.length; k++){
+                    assertEquals(pr[k][i][j], pu[k][i][j]);
+                }
+            }
+        }
+
+        // the edges keep the log-likelihood of their copula on the batch
+        for(Edge e : updated.getRegularVine()[0].getUndirectedEdgeList()){
+            int x = e.getFrom().getCondSet().get(0);
+            int y = e.getTo().getCondSet().get(0);
+            double[] a = batch.attributeToDoubleArray(Math.min(x, y)-1);
+            double[] b = batch.attributeToDoubleArray(Math.max(x, y)-1);
+            assertEquals(e.getCopula().logLikelihood(a, b, null),
+                    e.getLogLik(), 1e-9);
+        }
+
+        // the update step moves half way with the default rate
+        RegularVine half = (RegularVine) new SerializedObject(prior)
+                .getObject();
+        half.setUpdateIterations(200);
+        half.update(batch);
+        HashMap<String, double[]> before = new HashMap<String, double[]>();
+        for(Edge e : prior.getRegularVine()[0].getUndirectedEdgeList()){
+            before.put(e.getLabel(), e.getCopula().getParams());
+        }
+        HashMap<String, double[]> after = new HashMap<String, double[]>();
+        for(Edge e : refit.getRegularVine()[0].getUndirectedEdgeList()){
+            after.put(e.getLabel(), e.getCopula().getParams());
+        }
+
+        // the first tree sees the same observations in both builds
+        for(Edge e : half.getRegularVine()[0].getUndirectedEdgeList()){
+            double[] a = before.get(e.getLabel());
+            double[] b = after.get(e.getLabel());
+            double[] p = e.getCopula().getParams();
+            for(int i=0; i<p.length; i++){
+                assertEquals((a[i]+b[i])/2, p[i], 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Counts the recorded phases of a BuildTimer.
+     *
+     * @param timer the timer.
+     * @param phase the phase.
+     * @return the number of records of the phase.
+     */
+    private static int count(BuildTimer timer, BuildListener.Phase phase){
+        Instances phases = timer.getPhaseTimings();
+        int out = 0;
+        for(int i=0; i<phases.numInstances(); i++){
+            if(phases.instance(i).value(1) == phase.ordinal()) out++;
+        }
+        return out;
+    }
+
+    /**
+     * Test if the warm start and the update notify the listeners
+     * like the cold build
+     */
+    public void testListeners() throws Exception{
+        Instances data = readData(300, 4);
+        RegularVine prior = new RegularVine();
+        BuildTimer timer = new BuildTimer();
+        prior.addBuildListener(timer);
+        prior.buildEstimator(data);
+        assertEquals(6, timer.getEdgeFits().numInstances());
+        assertEquals(3, count(timer, BuildListener.Phase.FITTING));
+
+        // the records are reset by the next construction
+        prior.update(readData(350, 4));
+        assertEquals(6, timer.getEdgeFits().numInstances());
+        assertEquals(3, count(timer, BuildListener.Phase.FITTING));
+        assertEquals(2, count(timer, BuildListener.Phase.MERGE));
+
+        RegularVine warm = new RegularVine();
+        timer = new BuildTimer();
+        warm.addBuildListener(timer);
+        warm.setSubsample(100);
+        warm.setPriorTolerance(1);
+        warm.buildEstimator(data, prior);
+        assertEquals(6, timer.getEdgeFits().numInstances());
+        assertEquals(3, count(timer, BuildListener.Phase.WEIGHTING));
+        assertEquals(3, count(timer, BuildListener.Phase.FITTING));
+        assertEquals(2, count(timer, BuildListener.Phase.MERGE));
+        assertEquals(1, count(timer, BuildListener.Phase.REFIT));
+        assertEquals(1, count(timer, BuildListener.Phase.MATRIX));
+    }
+
+    /**
+     * Test if the listeners are notified about an aborted construction
+     */
+    public void testListenersFailure() throws Exception{
+        Instances data = readData(300, 4);
+        final int[] calls = new int[2];
+        BuildListener record = new BuildAdapter(){
+            @Override
+            public void buildFinished(long elapsed){
+                calls[0]++;
+            }
+
+            @Override
+            public void buildFailed(long elapsed){
+                calls[1]++;
+            }
+        };
+        BuildListener abort = new BuildAdapter(){
+            @Override
+            public void edgeFitted(int tree, Edge e, Copula c,
+                    double logLik){
+                throw new IllegalStateException("abort");
+            }
+        };
+
+        RegularVine rvine = new RegularVine();
+        rvine.addBuildListener(record);
+        rvine.addBuildListener(abort);
+        try{
+            rvine.buildEstimator(data);
+            fail("The build was not aborted");
+        }catch(IllegalStateException e){
+            // expected
+        }
+        assertEquals(0, calls[0]);
+        assertEquals(1, calls[1]);
+
+        // the next construction is notified again
+        rvine.removeBuildListener(abort);
+        rvine.buildEstimator(data);
+        assertEquals(1, calls[0]);
+        assertEquals(1, calls[1]);
+
+        rvine.addBuildListener(abort);
+        try{
+            rvine.update(data);
+            fail("The update was not aborted");
+        }catch(IllegalStateException e){
+            // expected
+        }
+        assertEquals(2, calls[1]);
+    }
+
+    /**
+     * Test if the copulas are pruned by the attainable Kendall's tau
+     * with a slack of one standard deviation
+     */
+    public void testPruneCopulas() throws Exception{
+        RegularVine rvine = new RegularVine();
+        Copula[] cops = new Copula[]{new ClaytonCopula(),
+                new CopulaRotation(new ClaytonCopula(),
+                        CopulaRotation.Mode.ROT90),
+                new GaussCopula()};
+        Edge e = new Edge(new Node(1), new Node(2), 0);
+        int n = 200;
+        double sd = VineUtils.kendallsTauStdDev(n);
+
+        // strong dependence keeps the copulas of its sign
+        e.setTau(0.6);
+        Copula[] out = rvine.pruneCopulas(cops, e, n);
+        assertEquals(2, out.length);
+        assertSame(cops[0], out[0]);
+        assertSame(cops[2], out[1]);
+        e.setTau(-0.6);
+        out = rvine.pruneCopulas(cops, e, n);
+        assertEquals(2, out.length);
+        assertSame(cops[1], out[0]);
+
+        // a weak dependence within the slack keeps all of them
+        e.setTau(-0.5*sd);
+        assertEquals(3, rvine.pruneCopulas(cops, e, n).length);
+        e.setTau(0.5*sd);
+        assertEquals(3, rvine.pruneCopulas(cops, e, n).length);
+        e.setTau(-2*sd);
+        assertEquals(2, rvine.pruneCopulas(cops, e, n).length);
+
+        // if no copula remains, all are kept
+        Copula[] clayton = new Copula[]{cops[0]};
+        e.setTau(-0.6);
+        assertEquals(1, rvine.pruneCopulas(clayton, e, n).length);
+
+        // the strongly dependent edges of a build are fitted with
+        // a copula of their sign
+        Instances data = readData(300, 4);
+        rvine.buildEstimator(data);
+        for(Edge f : rvine.getRegularVine()[0].getUndirectedEdgeList()){
+            assertTrue(f.getTau() > 2*sd);
+            assertTrue(f.getCopula().tauRange()[1] > 0);
+            assertFalse(f.getCopula() instanceof IndependenceCopula);
+        }
+    }
+
+    /**
+     * Test if the independence test sets the independence copula on
+     * independent data only
+     */
+    public void testIndependenceTest() throws Exception{
+        Instances data = readData(400, 4);
+        Instances noise = new Instances(data);
+        Random r = new Random(1);
+        for(int i=0; i<noise.numInstances(); i++){
+            for(int j=0; j<noise.numAttributes(); j++){
+                noise.instance(i).setValue(j, r.nextDouble());
+            }
+        }
+
+        RegularVine rvine = new RegularVine();
+        rvine.setIndepTest(true);
+        rvine.buildEstimator(noise);
+        for(Graph g : rvine.getRegularVine()){
+            for(Edge e : g.getUndirectedEdgeList()){
+                assertTrue(e.getCopula() instanceof IndependenceCopula);
+                assertEquals(0, e.getLogLik(), 0);
+            }
+        }
+
+        // the dependent edges are kept, the weak edge of the last tree
+        // is independent at the lower level only
+        rvine.buildEstimator(data);
+        Edge last = rvine.getRegularVine()[2].getUndirectedEdgeList().get(0);
+        assertFalse(last.getCopula() instanceof IndependenceCopula);
+        for(Edge e : rvine.getRegularVine()[0].getUndirectedEdgeList()){
+            assertFalse(e.getCopula() instanceof IndependenceCopula);
+        }
+        rvine.setAlpha(0.01);
+        rvine.buildEstimator(data);
+        last = rvine.getRegularVine()[2].getUndirectedEdgeList().get(0);
+        assertTrue(last.getCopula() instanceof IndependenceCopula);
+    }
+
+    /**
+     * Test if the subsample is reproducible with a fixed seed and the
+     * refit on the full data restores the full fit
+     */
+    public void testSubsample() throws Exception{
+        Instances data = readData(400, 4);
+
+        RegularVine a = new RegularVine();
+        a.setSubsample(200);
+        a.setSeed(2);
+        a.buildEstimator(data);
+        RegularVine b = new RegularVine();
+        b.setSubsample(200);
+        b.setSeed(2);
+        b.buildEstimator(data);
+
+        assertTrue(Arrays.deepEquals(a.getRVineMatrix(), b.getRVineMatrix()));
+        assertTrue(Arrays.deepEquals(a.getFamilyMatrix(), b.getFamilyMatrix()));
+        assertTrue(Arrays.deepEquals(a.getParMatrices(), b.getParMatrices()));
+        assertEquals(a.logDensity(data), b.logDensity(data), 0);
+        assertEquals(400, a.numObservations);
+
+        // this subsample selects the structure of the full build,
+        // the refit gives the same edges
+        RegularVine full = new RegularVine();
+        full.buildEstimator(data);
+        RegularVine sub = new RegularVine();
+        sub.setSubsample(300);
+        sub.setSeed(3);
+        sub.buildEstimator(data);
+        assertTrue(Arrays.deepEquals(full.getRVineMatrix(),
+                sub.getRVineMatrix()));
+        assertTrue(Arrays.deepEquals(full.getFamilyMatrix(),
+                sub.getFamilyMatrix()));
+
+        for(int lev=0; lev<full.getRegularVine().length; lev++){
+            HashMap<String, Double> ll = new HashMap<String, Double>();
+            for(Edge e : full.getRegularVine()[lev].getUndirectedEdgeList()){
+                ll.put(e.getLabel(), e.getLogLik());
+            }
+            for(Edge e : sub.getRegularVine()[lev].getUndirectedEdgeList()){
+                assertEquals(ll.get(e.getLabel()), e.getLogLik(), 1e-9);
+            }
+        }
+        assertEquals(full.logDensity(data), sub.logDensity(data), 1e-9);
+    }
+
+    /**
+     * Test if the quasi-Monte Carlo samples are reproducible and have
+     * uniform marginals
+     */
+    public void testQuasiRandomSampling() throws Exception{
+        Instances data = readData(200, 4);
+        RegularVine rvine = new RegularVine();
+        rvine.buildEstimator(data);
+        int n = 1024;
+        int[][] m = rvine.getRVineMatrix();
+        int first = m[m.length-1][m.length-1]-1;
+
+        RegularVine.Sampling[] modes = new RegularVine.Sampling[]{
+                RegularVine.Sampling.SOBOL, RegularVine.Sampling.HALTON};
+        for(RegularVine.Sampling mode : modes){
+            double[][] a = rvine.createRandomSamples(n, 7, mode);
+            double[][] b = rvine.createRandomSamples(n, 7, mode);
+            assertTrue(Arrays.deepEquals(a, b));
+            assertFalse(Arrays.deepEquals(a,
+                    rvine.createRandomSamples(n, 8, mode)));
+
+            // the Kolmogorov-Smirnov distance of the marginals is below
+            // the 5% critical value, the first sampled variable takes
+            // the first dimension of the point set
+            for(int j=0; j<m.length; j++){
+                double[] u = new double[n];
+                for(int i=0; i<n; i++){
+                    u[i] = a[i][j];
+                }
+                Arrays.sort(u);
+                double ks = 0;
+                for(int i=0; i<n; i++){
+                    ks = Math.max(ks, Math.max(u[i]-(double) i/n,
+                            (double) (i+1)/n-u[i]));
+                }
+                assertTrue(ks < 1.36/Math.sqrt(n));
+                if(j == first) assertTrue(ks < 2.0/n);
+            }
+
+            // the chunks do not depend on the number of slots
+            int count = RegularVine.CHUNK_SIZE + n;
+            rvine.setNumExecutionSlots(1);
+            a = rvine.createRandomSamples(count, 7, mode);
+            rvine.setNumExecutionSlots(4);
+            b = rvine.createRandomSamples(count, 7, mode);
+            assertTrue(Arrays.deepEquals(a, b));
+        }
+    }
+}
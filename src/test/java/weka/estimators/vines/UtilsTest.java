@@ -1,13 +1,21 @@
 package weka.estimators.vines;
 
 import junit.framework.*;
+import weka.core.DenseInstance;
+import weka.core.Instances;
 import weka.estimators.vines.Edge;
 import weka.estimators.vines.Graph;
 import weka.estimators.vines.Node;
 import weka.estimators.vines.VineUtils;
+import weka.estimators.vines.copulas.ClaytonCopula;
+import weka.estimators.vines.copulas.Copula;
+import weka.estimators.vines.copulas.FrankCopula;
+import weka.estimators.vines.copulas.GaussCopula;
+import weka.estimators.vines.copulas.GumbelCopula;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * This is a JUnit Test for the Utils class.
@@ -101,6 +109,43 @@ public class UtilsTest extends TestCase {
 		assertEquals(VineUtils.kendallsTau(a,b), -0.10540925533894598);
     }
     
+    /**
+     * Test for weighted Kendall's tau algorithm
+     */
+    public void testWeightedKendallsTau(){
+		double[] a = new double[]{1.5, 3.5, 2, 1, -1};
+		double[] b = new double[]{2.5, 0, 0.5, 2.5, -0.5};
+		double[] w = new double[]{2, 0, 1, 3, 1};
+		
+		// repeat the observations by their weights
+		double[] x = new double[]{1.5, 1.5, 2, 1, 1, 1, -1};
+		double[] y = new double[]{2.5, 2.5, 0.5, 2.5, 2.5, 2.5, -0.5};
+		
+		assertEquals(VineUtils.kendallsTau(a, b, w),
+				VineUtils.kendallsTau(x, y), 0.0000001);
+		assertEquals(VineUtils.kendallsTau(a, b, null),
+				VineUtils.kendallsTau(a, b));
+    }
+    
+    /**
+     * Test for the empirical copula algorithm
+     */
+    public void testEmpiricalCopula(){
+		double[] a = new double[]{0.5, 0.2, 0.5, 0.9, 0.1, 0.2, 0.7};
+		double[] b = new double[]{0.3, 0.8, 0.3, 0.1, 0.6, 0.4, 0.9};
+		
+		double[] emp = VineUtils.empiricalCopula(a, b);
+		
+		// count the observations below every point
+		for(int i=0; i<a.length; i++){
+			int obs = 0;
+			for(int j=0; j<a.length; j++){
+				if(a[j] <= a[i] && b[j] <= b[i]) obs++;
+			}
+			assertEquals(obs / (double) a.length, emp[i], 0.0000001);
+		}
+    }
+    
     /**
      * Test for rank normalization algorithm
      */
@@ -123,4 +168,86 @@ public class UtilsTest extends TestCase {
 		assertTrue(Arrays.equals(x4, new double[]{0.13333333333333333, 0.3333333333333333, 0.3333333333333333, 0.5333333333333333, 0.6666666666666666, 0.8, 1.0, 1.0}));
 		assertTrue(Arrays.equals(x5, new double[]{0.3125, 0.3125, 0.625, 0.5, 0.125, 0.8125, 0.8125, 1.0}));
     }
+    
+    /**
+     * Test if the Monte Carlo Kullback Leibler Divergence matches the
+     * grid estimator and does not depend on the number of threads
+     */
+    public void testKullbackLeiblerDivergenceMC() throws Exception{
+		Instances data = RegularVineTest.readData(300, 2);
+		RegularVine q = new RegularVine();
+		q.buildEstimator(data);
+		
+		// KL(q||independence) is the mutual information of q
+		RegularVine p = new RegularVine();
+		p.setBuildMethod(RegularVine.BuildMethod.THRESHOLD);
+		p.setThreshold(2);
+		p.buildEstimator(data);
+		
+		// midpoint rule on a 100 x 100 grid
+		int g = 100;
+		Instances v = new Instances(data, g*g);
+		for(int i=0; i<g; i++){
+			for(int j=0; j<g; j++){
+				v.add(new DenseInstance(1, new double[]{(i+0.5)/g, (j+0.5)/g}));
+			}
+		}
+		double grid = VineUtils.KullbackLeiblerDivergenceLog(q, p, v)/(g*g);
+		
+		double[] mc = VineUtils.KullbackLeiblerDivergenceMC(q, p, 0.01, 100000, 1, 1);
+		assertTrue(mc[1] <= 0.01);
+		assertEquals(grid, mc[0], 4*mc[1]);
+		
+		double[] mc2 = VineUtils.KullbackLeiblerDivergenceMC(q, p, 0.01, 100000, 1, 2);
+		assertTrue(Arrays.equals(mc, mc2));
+    }
+    
+    /**
+     * Creates the GOF-Test candidates.
+     * 
+     * @return the Gauss, Clayton, Gumbel and Frank copula.
+     */
+    private static Copula[] gofCandidates(){
+		return new Copula[]{new GaussCopula(), new ClaytonCopula(),
+				new GumbelCopula(), new FrankCopula()};
+    }
+    
+    /**
+     * Test if the GOF-Test selects the generating family, also for
+     * normalized and frequency weights
+     */
+    public void testSequentialGoodnessOfFit(){
+		// a Clayton sample with tau = 0.5
+		Copula gen = new ClaytonCopula();
+		gen.setParams(new double[]{2});
+		SplittableRandom r = new SplittableRandom(3);
+		int n = 300;
+		double[] a = new double[n];
+		double[] b = new double[n];
+		for(int i=0; i<n; i++){
+			a[i] = r.nextDouble();
+			b[i] = gen.h1inverse(a[i], r.nextDouble());
+		}
+		a = VineUtils.rankNormalization(a);
+		b = VineUtils.rankNormalization(b);
+		
+		Copula c = VineUtils.sequentialGoodnessOfFit(gofCandidates(), a, b,
+				null, 200, 1, 1);
+		assertTrue(c instanceof ClaytonCopula);
+		
+		// the replicates have the effective size for any weight scale
+		double[] normalized = new double[n];
+		double[] frequency = new double[n];
+		Arrays.fill(normalized, 1.0/n);
+		Arrays.fill(frequency, 5);
+		Copula cn = VineUtils.sequentialGoodnessOfFit(gofCandidates(), a, b,
+				normalized, 200, 1, 1);
+		Copula cf = VineUtils.sequentialGoodnessOfFit(gofCandidates(), a, b,
+				frequency, 200, 1, 1);
+		assertTrue(cn instanceof ClaytonCopula);
+		assertTrue(cf instanceof ClaytonCopula);
+		assertEquals(c.getParams()[0], cn.getParams()[0], 1e-4);
+		assertEquals(c.getParams()[0], cf.getParams()[0], 1e-4);
+		assertEquals(n, VineUtils.effectiveSize(normalized, null, n), 1e-9);
+    }
 }
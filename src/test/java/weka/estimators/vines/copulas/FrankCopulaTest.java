@@ -224,10 +224,24 @@ public class FrankCopulaTest extends TestCase {
 				if(par == 0) continue;
 				
 				c.setParams(new double[]{par});
-				// can't get more precise, simpson's rule is too weak.
-				assert(Math.abs(c.tau() - vals[run][p]) < 0.01 );
+				assert(Math.abs(c.tau() - vals[run][p]) < 0.00001 );
+			}
+		}
+	}
+	
+	public void testTauInverse(){
+		FrankCopula c = new FrankCopula();
+		FrankCopula c2 = new FrankCopula();
+		
+		for(int run=0; run < 2; run++){
+			for(int p=1; p<20; p++){
+				double par = p-10;
+				if(run == 1) par = par/10.0;
+				
+				c.setParams(new double[]{par});
+				c2.tauInverse(c.tau());
+				assert(Math.abs(c2.getParams()[0] - par) < 0.00001 );
 			}
 		}
 	}
 }
-
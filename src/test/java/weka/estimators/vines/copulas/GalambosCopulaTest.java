@@ -219,5 +219,21 @@ public class GalambosCopulaTest extends TestCase {
 			}
 		}
 	}
+	
+	public void testTauInverse(){
+		GalambosCopula c = new GalambosCopula();
+		GalambosCopula c2 = new GalambosCopula();
+		
+		for(int run=0; run <2; run++){
+			for(int p=1; p<10; p++){
+				double par = p;
+				if(run == 1) par = 1.0/p;
+				
+				c.setParams(new double[]{par});
+				c2.tauInverse(c.tau());
+				assert(Math.abs(c2.tau() - c.tau()) < 0.00001 );
+				assert(c.tau() >= c.tauRange()[0] && c.tau() <= c.tauRange()[1]);
+			}
+		}
+	}
 }
-
@@ -166,5 +166,21 @@ public class GaussCopulaTest extends TestCase {
 			assert(Math.abs(c.tau() - vals[p]) < 0.00001 );
 		}
 	}
+	
+	public void testLogLikelihood(){
+		GaussCopula c = new GaussCopula();
+		double[] a = new double[]{0.1, 0.35, 0.5, 0.72, 0.9, 0.00001};
+		double[] b = new double[]{0.2, 0.3, 0.65, 0.6, 0.99999, 0.4};
+		
+		for(int p=1; p<20; p++){
+			double par = p/10.0-1;
+			
+			c.setParams(new double[]{par});
+			double ll = 0;
+			for(int i=0; i<a.length; i++){
+				ll += Math.log(c.density(a[i], b[i]));
+			}
+			assert(Math.abs(c.logLikelihood(a, b) - ll) < 0.00001 );
+		}
+	}
 }
-
@@ -2,6 +2,7 @@ package weka.estimators.vines.copulas;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.util.Random;
 
 import junit.framework.TestCase;
 import weka.estimators.vines.copulas.TCopula;
@@ -194,5 +195,63 @@ public class TCopulaTest extends TestCase {
 			}
 		}
 	}
+	
+	public void testLogLikelihood(){
+		TCopula c = new TCopula();
+		double[] a = new double[]{0.1, 0.35, 0.5, 0.72, 0.9, 0.00001};
+		double[] b = new double[]{0.2, 0.3, 0.65, 0.6, 0.99999, 0.4};
+		
+		for(int p=1; p<20; p++){
+			for(int v=3; v<=10; v++){
+				double par = p/10.0-1;
+				int par2 = v;
+				
+				c.setParams(new double[]{par, par2});
+				double ll = 0;
+				for(int i=0; i<a.length; i++){
+					ll += Math.log(c.density(a[i], b[i]));
+				}
+				assert(Math.abs(c.logLikelihood(a, b) - ll) < 0.00001 );
+			}
+		}
+	}
+	
+	public void testContinuousDegreesOfFreedom(){
+		TCopula c = new TCopula();
+		TCopula d = new TCopula();
+		
+		for(int p=1; p<20; p++){
+			for(int v=3; v<10; v++){
+				double par = p/10.0-1;
+				
+				c.setParams(new double[]{par, v});
+				d.setParams(new double[]{par, v+0.000001});
+				for(int i=1; i<10; i++){
+					for(int j=1; j<10; j++){
+						assert(Math.abs(c.density(i/10.0, j/10.0) - d.density(i/10.0, j/10.0)) < 0.00001 );
+						assert(Math.abs(c.h1Function(i/10.0, j/10.0) - d.h1Function(i/10.0, j/10.0)) < 0.00001 );
+					}
+				}
+			}
+		}
+	}
+	
+	public void testMLEInterpolatedQuantiles(){
+		TCopula gen = new TCopula();
+		gen.setParams(new double[]{0.6, 3.3});
+		
+		Random r = new Random(1);
+		double[] a = new double[300];
+		double[] b = new double[300];
+		for(int i=0; i<a.length; i++){
+			a[i] = r.nextDouble();
+			b[i] = gen.h1inverse(a[i], r.nextDouble());
+		}
+		
+		// the fit uses interpolated quantiles, the log-likelihood exact ones
+		TCopula c = new TCopula();
+		double ll = c.mle(a, b);
+		assert(c.getParams()[1] != Math.rint(c.getParams()[1]));
+		assert(Math.abs(ll - c.logLikelihood(a, b)) < 0.001);
+	}
 }
-
@@ -0,0 +1,51 @@
+package weka.estimators.vines.functions;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class StudentKernelTest extends TestCase {
+	
+	/**
+	 * The interpolated quantiles match the exact quantiles.
+	 */
+	public void testQuantileTable(){
+		Random r = new Random(1);
+		for(double v : new double[]{2.05, 3.3, 8.37, 29.7}){
+			StudentKernel k = new StudentKernel(v);
+			for(int i=0; i<2000; i++){
+				double u = 1e-4 + r.nextDouble()*(1-2e-4);
+				double e = k.inverseF(u);
+				assertEquals(e, k.quantile(u), 1e-8*Math.max(1, Math.abs(e)));
+			}
+		}
+	}
+	
+	/**
+	 * Repeated evaluations compute every table node once, instead of
+	 * two SSJ quantiles per argument.
+	 */
+	public void testQuantileTableReuse(){
+		StudentKernel k = new StudentKernel(8.37);
+		Random r = new Random(2);
+		double[] u = new double[20000];
+		for(int i=0; i<u.length; i++){
+			u[i] = 1e-4 + r.nextDouble()*(1-2e-4);
+			k.quantile(u[i]);
+		}
+		long nodes = k.getExactQuantiles();
+		assertTrue(nodes > 0);
+		assertTrue(nodes < 600);
+		
+		// the second pass is served from the table
+		for(int i=0; i<u.length; i++){
+			k.quantile(u[i]);
+		}
+		assertEquals(nodes, k.getExactQuantiles());
+		
+		// integer degrees of freedom are exact and need no table
+		StudentKernel ki = new StudentKernel(8);
+		assertEquals(ki.inverseF(0.3), ki.quantile(0.3), 0);
+		assertEquals(0, ki.getExactQuantiles());
+	}
+}
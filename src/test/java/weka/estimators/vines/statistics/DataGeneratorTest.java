@@ -0,0 +1,129 @@
+package weka.estimators.vines.statistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+
+import junit.framework.*;
+import weka.core.Instances;
+import weka.core.converters.CSVLoader;
+import weka.estimators.vines.RegularVineTest;
+
+/**
+ * This is a JUnit Test for the DataGenerator class.
+ *
+ * @author Christian Lamberty (clamber@students.uni-mainz.de)
+ */
+public class DataGeneratorTest extends TestCase {
+    private static final int ROWS = 1000;
+    private static final long SEED = 5;
+
+    private DataGenerator generator;
+    private Instances expected;
+    private File file;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public DataGeneratorTest( String testName ){
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite(){
+        return new TestSuite( DataGeneratorTest.class );
+    }
+
+    @Override
+    protected void setUp() throws Exception{
+        File base = File.createTempFile("base", ".arff");
+        try{
+            BufferedWriter w = new BufferedWriter(new FileWriter(base));
+            w.write(RegularVineTest.readData(200, 3).toString());
+            w.close();
+            generator = new DataGenerator(base.getPath());
+        }finally{
+            base.delete();
+        }
+        expected = generator.randomGenerate(ROWS, SEED);
+        file = File.createTempFile("generated", ".tmp");
+    }
+
+    @Override
+    protected void tearDown(){
+        file.delete();
+    }
+
+    /**
+     * Test if the streamed ARFF file holds the generated samples
+     */
+    public void testStreamArff() throws Exception{
+        generator.streamGenerate(ROWS, SEED, file, DataGenerator.Format.ARFF);
+        BufferedReader r = new BufferedReader(new FileReader(file));
+        Instances data = new Instances(r);
+        r.close();
+        assertData(data);
+    }
+
+    /**
+     * Test if the streamed CSV file holds the generated samples
+     */
+    public void testStreamCsv() throws Exception{
+        generator.streamGenerate(ROWS, SEED, file, DataGenerator.Format.CSV);
+        CSVLoader loader = new CSVLoader();
+        loader.setSource(file);
+        Instances data = loader.getDataSet();
+        assertEquals(expected.attribute(0).name(), data.attribute(0).name());
+        assertData(data);
+    }
+
+    /**
+     * Test if the streamed binary file holds the generated samples
+     */
+    public void testStreamBinary() throws Exception{
+        generator.streamGenerate(ROWS, SEED, file,
+                DataGenerator.Format.BINARY);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)));
+        try{
+            assertEquals(ROWS, in.readLong());
+            int n = in.readInt();
+            assertEquals(expected.numAttributes(), n);
+            for(int j=0; j<n; j++){
+                for(int i=0; i<ROWS; i++){
+                    assertEquals(expected.instance(i).value(j),
+                            in.readDouble(), 0);
+                }
+            }
+            assertEquals(-1, in.read());
+        }finally{
+            in.close();
+        }
+        assertEquals(12 + 8L*ROWS*expected.numAttributes(), file.length());
+    }
+
+    /**
+     * Compares a data set read back from a file to the expected samples.
+     *
+     * @param data the data set.
+     */
+    private void assertData(Instances data){
+        assertEquals(ROWS, data.numInstances());
+        assertEquals(expected.numAttributes(), data.numAttributes());
+        for(int i=0; i<ROWS; i++){
+            for(int j=0; j<data.numAttributes(); j++){
+                assertEquals(expected.instance(i).value(j),
+                        data.instance(i).value(j), 0);
+            }
+        }
+    }
+}